@@ -0,0 +1,30 @@
+package com.gaad.rabbitmq.fgb.benchmark;
+
+import com.gaad.rabbitmq.fgb.annotation.FgbServerMethod;
+
+/**
+ * 基准测试的fgbServer，方法本身不做任何工作，SYNC方法原样返回参数以得到同样大小的答复
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class BenchmarkServer {
+
+    @FgbServerMethod("small")
+    public String small(String key, int value) {
+        return key;
+    }
+
+    @FgbServerMethod("order")
+    public Order order(Order order) {
+        return order;
+    }
+
+    @FgbServerMethod("smallEvent")
+    public void smallEvent(String key, int value) {
+    }
+
+    @FgbServerMethod("orderEvent")
+    public void orderEvent(Order order) {
+    }
+}
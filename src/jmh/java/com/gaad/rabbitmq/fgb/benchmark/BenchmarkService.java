@@ -0,0 +1,25 @@
+package com.gaad.rabbitmq.fgb.benchmark;
+
+import com.gaad.rabbitmq.fgb.annotation.FgbClientMethod;
+import com.gaad.rabbitmq.fgb.model.enums.FgbType;
+
+/**
+ * 基准测试的fgbClient接口，SYNC方法由 {@link BenchmarkServer} 实现
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public interface BenchmarkService {
+
+    @FgbClientMethod("small")
+    String small(String key, int value);
+
+    @FgbClientMethod("order")
+    Order order(Order order);
+
+    @FgbClientMethod(value = "smallEvent", type = FgbType.ASYNC)
+    void smallEvent(String key, int value);
+
+    @FgbClientMethod(value = "orderEvent", type = FgbType.ASYNC)
+    void orderEvent(Order order);
+}
@@ -0,0 +1,25 @@
+package com.gaad.rabbitmq.fgb.benchmark;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+/**
+ * 不发送ASYNC消息的RabbitTemplate，只累计消息体字节数，用于测量客户端构建请求的开销
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class DiscardingRabbitTemplate extends RabbitTemplate {
+
+    private long sentBytes;
+
+    @Override
+    public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        this.sentBytes += message.getBody().length;
+    }
+
+    public long getSentBytes() {
+        return this.sentBytes;
+    }
+}
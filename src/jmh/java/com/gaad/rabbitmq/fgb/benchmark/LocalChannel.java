@@ -0,0 +1,48 @@
+package com.gaad.rabbitmq.fgb.benchmark;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.BiConsumer;
+
+/**
+ * 不连接broker的Channel，basicPublish交给publisher处理，其余方法(如basicAck)直接返回默认值
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public final class LocalChannel implements InvocationHandler {
+
+    private final BiConsumer<AMQP.BasicProperties, byte[]> publisher;
+
+    private LocalChannel(BiConsumer<AMQP.BasicProperties, byte[]> publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * @param publisher 答复的消息属性和消息体
+     * @return
+     */
+    public static Channel create(BiConsumer<AMQP.BasicProperties, byte[]> publisher) {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class[]{Channel.class}, new LocalChannel(publisher));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        if ("basicPublish".equals(method.getName()) && args.length == 4) {
+            this.publisher.accept((AMQP.BasicProperties) args[2], (byte[]) args[3]);
+            return null;
+        }
+        Class<?> returnType = method.getReturnType();
+        if (returnType == boolean.class) {
+            return false;
+        }
+        if (returnType.isPrimitive() && returnType != void.class) {
+            return 0;
+        }
+        return null;
+    }
+}
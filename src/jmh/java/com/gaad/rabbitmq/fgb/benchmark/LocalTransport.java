@@ -0,0 +1,93 @@
+package com.gaad.rabbitmq.fgb.benchmark;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Address;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 代替broker的本地传输，sendAndReceive在调用线程中把请求交给服务端监听器，服务端答复后完成future
+ * 请求和答复的消息属性都像经过broker一样转换为AMQP属性再解析，不包含网络和broker的开销
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class LocalTransport extends AsyncRabbitTemplate {
+
+    private static final MessagePropertiesConverter CONVERTER = new DefaultMessagePropertiesConverter();
+
+    private static final String CHARSET = StandardCharsets.UTF_8.name();
+
+    private final ChannelAwareMessageListener server;
+
+    private final Channel channel;
+
+    private final AtomicLong correlationSequence = new AtomicLong();
+
+    private final AtomicLong deliveryTag = new AtomicLong();
+
+    private final Map<String, RabbitMessageFuture> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param server 服务端监听器，即FgbServerHandler
+     */
+    public LocalTransport(ChannelAwareMessageListener server) {
+        super(new RabbitTemplate(new CachingConnectionFactory()));
+        this.server = server;
+        this.channel = LocalChannel.create(this::reply);
+    }
+
+    @Override
+    public RabbitMessageFuture sendAndReceive(Message message) {
+        String correlationId = String.valueOf(this.correlationSequence.incrementAndGet());
+        MessageProperties messageProperties = message.getMessageProperties();
+        messageProperties.setCorrelationId(correlationId);
+        messageProperties.setReplyTo(Address.AMQ_RABBITMQ_REPLY_TO);
+        RabbitMessageFuture future = new RabbitMessageFuture(correlationId, message);
+        this.pending.put(correlationId, future);
+        Envelope envelope = new Envelope(this.deliveryTag.incrementAndGet(), false, "", "benchmark");
+        MessageProperties delivered = CONVERTER.toMessageProperties(CONVERTER.fromMessageProperties(messageProperties, CHARSET), envelope, CHARSET);
+        try {
+            this.server.onMessage(new Message(message.getBody(), delivered), this.channel);
+        } catch (Exception e) {
+            this.pending.remove(correlationId);
+            throw new AmqpException(e);
+        }
+        return future;
+    }
+
+    private void reply(AMQP.BasicProperties properties, byte[] body) {
+        MessageProperties messageProperties = CONVERTER.toMessageProperties(properties, null, CHARSET);
+        RabbitMessageFuture future = this.pending.remove(messageProperties.getCorrelationId());
+        if (future != null) {
+            future.set(new Message(body, messageProperties));
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+    }
+
+    @Override
+    public synchronized void stop() {
+    }
+
+    @Override
+    public boolean isRunning() {
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+package com.gaad.rabbitmq.fgb.benchmark;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 基准测试的订单，按行数构造中等和较大的参数
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class Order implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String orderId;
+
+    private long customerId;
+
+    private Date createdAt;
+
+    private String status;
+
+    private BigDecimal total;
+
+    private List<String> tags;
+
+    private List<OrderLine> lines;
+
+    /**
+     * @param lines 订单行数
+     * @return 内容固定的订单
+     */
+    public static Order sample(int lines) {
+        Order order = new Order();
+        order.setOrderId("order-" + lines);
+        order.setCustomerId(10086L);
+        order.setCreatedAt(new Date(1760000000000L));
+        order.setStatus("PAID");
+        order.setTags(Arrays.asList("express", "gift", "vip"));
+        List<OrderLine> orderLines = new ArrayList<>(lines);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            OrderLine line = new OrderLine();
+            line.setSku("sku-" + i);
+            line.setName("商品-" + i);
+            line.setQuantity(i % 5 + 1);
+            line.setPrice(BigDecimal.valueOf(1999 + i, 2));
+            orderLines.add(line);
+            total = total.add(line.getPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        order.setLines(orderLines);
+        order.setTotal(total);
+        return order;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<OrderLine> lines) {
+        this.lines = lines;
+    }
+}
@@ -0,0 +1,55 @@
+package com.gaad.rabbitmq.fgb.benchmark;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 基准测试的订单行
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class OrderLine implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String sku;
+
+    private String name;
+
+    private int quantity;
+
+    private BigDecimal price;
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+}
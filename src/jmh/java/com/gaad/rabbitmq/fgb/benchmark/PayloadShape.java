@@ -0,0 +1,53 @@
+package com.gaad.rabbitmq.fgb.benchmark;
+
+import java.lang.reflect.Method;
+
+/**
+ * 参数形态：SMALL为两个标量，MEDIUM、LARGE分别为10行和1000行的订单
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public enum PayloadShape {
+
+    SMALL(0),
+
+    MEDIUM(10),
+
+    LARGE(1000);
+
+    private final int lines;
+
+    PayloadShape(int lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * @return 调用参数，每次返回新的数组，参数对象内容相同
+     */
+    public Object[] args() {
+        return this == SMALL ? new Object[]{"order-42", 42} : new Object[]{Order.sample(this.lines)};
+    }
+
+    /**
+     * @param async ASYNC时返回不需要答复的方法
+     * @return BenchmarkService中对应的方法
+     */
+    public Method method(boolean async) {
+        try {
+            if (this == SMALL) {
+                return BenchmarkService.class.getMethod(async ? "smallEvent" : "small", String.class, int.class);
+            }
+            return BenchmarkService.class.getMethod(async ? "orderEvent" : "order", Order.class);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return 调用的command
+     */
+    public String command() {
+        return this == SMALL ? "small" : "order";
+    }
+}
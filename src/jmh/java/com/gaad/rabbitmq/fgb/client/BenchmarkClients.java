@@ -0,0 +1,45 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import com.gaad.rabbitmq.fgb.benchmark.BenchmarkService;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.log.FgbAccessLog;
+import com.gaad.rabbitmq.fgb.model.enums.FgbCompressionType;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 不依赖Spring容器创建基准测试用的FgbClientProxy，FgbClient注解的选项均为默认值
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+final class BenchmarkClients {
+
+    private static final int REPLY_TIMEOUT = 5000;
+
+    private BenchmarkClients() {
+    }
+
+    /**
+     * @param codec             编解码器
+     * @param syncSender        SYNC请求的发送方
+     * @param asyncSender       ASYNC消息的发送方
+     * @param compression       请求压缩方式
+     * @param compressThreshold 压缩阈值
+     * @return BenchmarkService的FgbClientProxy
+     */
+    static FgbClientProxy proxy(FgbCodec codec, AsyncRabbitTemplate syncSender, RabbitTemplate asyncSender,
+                                FgbCompressionType compression, int compressThreshold) {
+        Map<Method, FgbClientCallSite> callSites = new HashMap<>();
+        for (Method method : BenchmarkService.class.getMethods()) {
+            callSites.put(method, FgbClientCallSite.create(BenchmarkService.class, method, codec));
+        }
+        return new FgbClientProxy(BenchmarkService.class, "benchmark", codec, callSites, syncSender, asyncSender, null, null, null,
+                FgbAccessLog.of(new StandardEnvironment()), REPLY_TIMEOUT, 1, 1000, REPLY_TIMEOUT, compression, compressThreshold, 0);
+    }
+}
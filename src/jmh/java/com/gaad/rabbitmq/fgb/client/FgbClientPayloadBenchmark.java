@@ -0,0 +1,74 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import com.gaad.rabbitmq.fgb.benchmark.DiscardingRabbitTemplate;
+import com.gaad.rabbitmq.fgb.benchmark.PayloadShape;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.codec.HessianFgbCodec;
+import com.gaad.rabbitmq.fgb.model.enums.FgbCompressionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端构建请求
+ * encodeRequest：编码调用参数
+ * invokeAsync：FgbClientProxy.invoke的ASYNC流程，包括编码、压缩、设置消息头和发送，消息由DiscardingRabbitTemplate丢弃
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FgbClientPayloadBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public PayloadShape shape;
+
+    @Param({"application/json", "application/x-fgb-hessian2"})
+    public String contentType;
+
+    @Param({"NONE", "GZIP"})
+    public FgbCompressionType compression;
+
+    private FgbClientCallSite callSite;
+
+    private FgbClientProxy proxy;
+
+    private DiscardingRabbitTemplate asyncSender;
+
+    private Method method;
+
+    private Object[] args;
+
+    @Setup
+    public void setUp() {
+        FgbCodec codec = FgbCodecRegistry.getCodec(this.contentType, FgbCodecRegistry.getCodec(HessianFgbCodec.class));
+        this.method = this.shape.method(true);
+        this.args = this.shape.args();
+        this.callSite = FgbClientCallSite.create(this.method.getDeclaringClass(), this.method, codec);
+        this.asyncSender = new DiscardingRabbitTemplate();
+        this.proxy = BenchmarkClients.proxy(codec, null, this.asyncSender, this.compression, 1024);
+    }
+
+    @Benchmark
+    public byte[] encodeRequest() throws IOException {
+        return this.callSite.encodeRequest(this.args);
+    }
+
+    @Benchmark
+    public long invokeAsync() throws Throwable {
+        this.proxy.invoke(null, this.method, this.args);
+        return this.asyncSender.getSentBytes();
+    }
+}
@@ -0,0 +1,65 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import com.gaad.rabbitmq.fgb.benchmark.LocalTransport;
+import com.gaad.rabbitmq.fgb.benchmark.PayloadShape;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.codec.HessianFgbCodec;
+import com.gaad.rabbitmq.fgb.model.enums.FgbCompressionType;
+import com.gaad.rabbitmq.fgb.server.BenchmarkHandlers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SYNC调用的完整往返：FgbClientProxy.invoke -> LocalTransport -> FgbServerHandler.onMessage -> 答复 -> 解码结果
+ * 不经过broker和网络，测量的是fgb本身在两端的开销
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FgbRoundTripBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public PayloadShape shape;
+
+    @Param({"application/json", "application/x-fgb-hessian2"})
+    public String contentType;
+
+    @Param({"NONE", "GZIP"})
+    public FgbCompressionType compression;
+
+    private FgbClientProxy proxy;
+
+    private Method method;
+
+    private Object[] args;
+
+    @Setup
+    public void setUp() throws Throwable {
+        FgbCodec codec = FgbCodecRegistry.getCodec(this.contentType, FgbCodecRegistry.getCodec(HessianFgbCodec.class));
+        this.method = this.shape.method(false);
+        this.args = this.shape.args();
+        this.proxy = BenchmarkClients.proxy(codec, new LocalTransport(BenchmarkHandlers.sync(codec)), null, this.compression, 1024);
+        // 调用失败时FgbClientProxy只打印日志并返回null
+        if (this.proxy.invoke(null, this.method, this.args) == null) {
+            throw new IllegalStateException("Round trip failed, Shape: " + this.shape + ", Content-Type: " + this.contentType);
+        }
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Throwable {
+        return this.proxy.invoke(null, this.method, this.args);
+    }
+}
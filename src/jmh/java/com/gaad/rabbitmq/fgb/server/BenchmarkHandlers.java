@@ -0,0 +1,40 @@
+package com.gaad.rabbitmq.fgb.server;
+
+import com.gaad.rabbitmq.fgb.benchmark.BenchmarkServer;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.log.FgbAccessLog;
+import com.gaad.rabbitmq.fgb.model.enums.FgbType;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * 不依赖Spring容器创建基准测试用的FgbServerHandler，方法在调用线程中执行，访问日志使用默认配置
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public final class BenchmarkHandlers {
+
+    private BenchmarkHandlers() {
+    }
+
+    /**
+     * @param codec 默认编解码器
+     * @return BenchmarkServer的SYNC FgbServerHandler
+     * @throws Exception
+     */
+    public static FgbServerHandler sync(FgbCodec codec) throws Exception {
+        FgbServerHandler handler = new FgbServerHandler(new BenchmarkServer(), "benchmark", FgbType.SYNC, codec);
+        handler.setAccessLog(FgbAccessLog.of(new StandardEnvironment()));
+        handler.afterPropertiesSet();
+        return handler;
+    }
+
+    static FgbServerMethodDescriptor descriptor(FgbServerHandler handler, String command) {
+        for (FgbServerMethodDescriptor descriptor : handler.getMethodDescriptors()) {
+            if (descriptor.getCommand().equals(command)) {
+                return descriptor;
+            }
+        }
+        throw new RuntimeException("Method: " + command + " Not Found");
+    }
+}
@@ -0,0 +1,83 @@
+package com.gaad.rabbitmq.fgb.server;
+
+import com.gaad.rabbitmq.fgb.benchmark.LocalChannel;
+import com.gaad.rabbitmq.fgb.benchmark.PayloadShape;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.codec.HessianFgbCodec;
+import com.gaad.rabbitmq.fgb.model.constants.FgbHeaderConstant;
+import com.rabbitmq.client.Channel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Address;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端处理SYNC请求
+ * decodeArgs：解码请求并按方法参数类型转换参数(原convertParamsTypes)
+ * dispatch：FgbServerHandler.onMessage的完整流程，包括解码、调用、编码结果和答复，答复发往本地Channel
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FgbServerDispatchBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public PayloadShape shape;
+
+    @Param({"application/json", "application/x-fgb-hessian2"})
+    public String contentType;
+
+    private FgbCodec codec;
+
+    private FgbServerHandler handler;
+
+    private FgbServerMethodDescriptor descriptor;
+
+    private byte[] body;
+
+    private Message message;
+
+    private Channel channel;
+
+    private long replyBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.codec = FgbCodecRegistry.getCodec(this.contentType, FgbCodecRegistry.getCodec(HessianFgbCodec.class));
+        this.handler = BenchmarkHandlers.sync(this.codec);
+        this.descriptor = BenchmarkHandlers.descriptor(this.handler, this.shape.command());
+        this.body = this.codec.encodeRequest(this.shape.command(), this.shape.args());
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(this.contentType);
+        messageProperties.setHeader(FgbHeaderConstant.COMMAND, this.shape.command());
+        messageProperties.setCorrelationId("benchmark");
+        messageProperties.setReplyTo(Address.AMQ_RABBITMQ_REPLY_TO);
+        this.message = new Message(this.body, messageProperties);
+        this.channel = LocalChannel.create((properties, reply) -> this.replyBytes += reply.length);
+    }
+
+    @Benchmark
+    public Object[] decodeArgs() throws IOException {
+        return this.descriptor.decodeArgs(this.codec.decodeRequest(this.body));
+    }
+
+    @Benchmark
+    public long dispatch() throws Exception {
+        this.handler.onMessage(this.message, this.channel);
+        return this.replyBytes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.gaad.rabbitmq.fgb.util;
+
+import com.gaad.rabbitmq.fgb.benchmark.PayloadShape;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.codec.HessianFgbCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端按方法返回类型解码答复
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ParamsConverterBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public PayloadShape shape;
+
+    @Param({"application/json", "application/x-fgb-hessian2"})
+    public String contentType;
+
+    private FgbCodec codec;
+
+    private Type returnType;
+
+    private byte[] result;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.codec = FgbCodecRegistry.getCodec(this.contentType, FgbCodecRegistry.getCodec(HessianFgbCodec.class));
+        this.returnType = this.shape.method(false).getGenericReturnType();
+        this.codec.allowType(this.returnType);
+        // 服务端原样返回第一个参数
+        this.result = this.codec.encodeResult(this.shape.args()[0]);
+    }
+
+    @Benchmark
+    public Object convertReturnType() throws IOException {
+        return ParamsConverterUtil.convertReturnType(this.returnType, this.codec, this.result);
+    }
+}
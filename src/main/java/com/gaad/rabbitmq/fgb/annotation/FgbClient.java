@@ -1,5 +1,10 @@
 package com.gaad.rabbitmq.fgb.annotation;
 
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.JsonFgbCodec;
+import com.gaad.rabbitmq.fgb.model.enums.FgbCompressionType;
+import com.gaad.rabbitmq.fgb.model.enums.FgbContainerType;
+
 import java.lang.annotation.*;
 
 /**
@@ -27,9 +32,136 @@ public @interface FgbClient {
     int replyTimeout() default 2000;
 
     /**
-     * 最大重试次数
+     * 每次SYNC调用最多发送请求的次数，发送失败时立即重发，开启对冲时包括对冲请求
      *
      * @return
      */
     int maxAttempts() default 3;
+
+    /**
+     * 编解码器，通过content-type告知服务端
+     *
+     * @return
+     */
+    Class<? extends FgbCodec> codec() default JsonFgbCodec.class;
+
+    /**
+     * SYNC调用使用RabbitMQ的direct reply-to(amq.rabbitmq.reply-to)接收答复，不再创建答复队列和答复监听
+     *
+     * @return
+     */
+    boolean directReplyTo() default false;
+
+    /**
+     * 等待broker确认的ASYNC消息最大数量，超出时调用方等待，最长等待replyTimeout，仍无空位时抛出FgbCallRejectedException，消息不发送
+     *
+     * @return
+     */
+    int maxInFlight() default 1000;
+
+    /**
+     * ASYNC调用批量发送的最大条数，大于1时开启批量发送，多个异步调用合并为一条消息
+     *
+     * @return
+     */
+    int batchSize() default 0;
+
+    /**
+     * 批量发送时批次中第一次调用后等待的最长时间(毫秒)，超时后发送未满的批次
+     *
+     * @return
+     */
+    long batchLinger() default 10;
+
+    /**
+     * 批量发送时单条消息的最大字节数
+     *
+     * @return
+     */
+    int batchMaxBytes() default 64 * 1024;
+
+    /**
+     * 答复队列监听的容器类型，DEFAULT时使用 spring.rabbitmq.listener.type
+     *
+     * @return
+     */
+    FgbContainerType containerType() default FgbContainerType.DEFAULT;
+
+    /**
+     * 答复队列监听每个消费者的预取数量，0时使用 spring.rabbitmq.listener.simple/direct.prefetch，未配置时为容器默认值
+     *
+     * @return
+     */
+    int prefetch() default 0;
+
+    /**
+     * 请求消息体的压缩方式，写入content-encoding；服务端需为支持压缩的版本。批量发送的ASYNC调用不压缩
+     *
+     * @return
+     */
+    FgbCompressionType compression() default FgbCompressionType.NONE;
+
+    /**
+     * 消息体达到该字节数才压缩
+     *
+     * @return
+     */
+    int compressThreshold() default 2048;
+
+    /**
+     * 熔断的失败率阈值(百分比)，大于0时每个SYNC方法按最近调用的失败率熔断，熔断期间直接拒绝调用；
+     * 失败指发送失败或等待答复超时
+     *
+     * @return
+     */
+    int failureRateThreshold() default 0;
+
+    /**
+     * 慢调用耗时(毫秒)，大于0时按最近调用的慢调用率熔断
+     *
+     * @return
+     */
+    long slowCallThreshold() default 0;
+
+    /**
+     * 熔断的慢调用率阈值(百分比)
+     *
+     * @return
+     */
+    int slowCallRateThreshold() default 100;
+
+    /**
+     * 熔断统计的最近调用次数
+     *
+     * @return
+     */
+    int circuitWindowSize() default 100;
+
+    /**
+     * 统计窗口内至少有该调用次数才判断是否熔断
+     *
+     * @return
+     */
+    int circuitMinimumCalls() default 20;
+
+    /**
+     * 熔断持续时间(毫秒)，之后放行circuitHalfOpenCalls次探测调用，探测结果未超过阈值时恢复
+     *
+     * @return
+     */
+    long circuitOpenDuration() default 10000;
+
+    /**
+     * 熔断恢复前的探测调用数
+     *
+     * @return
+     */
+    int circuitHalfOpenCalls() default 5;
+
+    /**
+     * 同时等待答复的SYNC调用最大数量，超出时直接拒绝，0时不限制
+     *
+     * @return
+     */
+    int maxConcurrentCalls() default 0;
 }
@@ -30,4 +30,79 @@ public @interface FgbClientMethod {
      * @return
      */
     FgbType type() default FgbType.SYNC;
+
+    /**
+     * FgbClient开启批量发送时，ASYNC调用是否参与批量，false时立即发送
+     *
+     * @return
+     */
+    boolean batch() default true;
+
+    /**
+     * ASYNC调用是否等待broker确认(publisher confirms)，需开启 spring.rabbitmq.publisher-confirm-type=correlated
+     * 等待确认的消息数受FgbClient的maxInFlight限制，确认的调用不参与批量发送；false时发出即忘
+     *
+     * @return
+     */
+    boolean confirm() default false;
+
+    /**
+     * SYNC调用结果的缓存时间(毫秒)，大于0时相同参数的调用在有效期内直接使用缓存的结果，不再请求服务端
+     * 只适用于幂等的查询方法，结果为null时不缓存
+     *
+     * @return
+     */
+    long cacheTtl() default 0;
+
+    /**
+     * 缓存的最大条数
+     *
+     * @return
+     */
+    int cacheMaxEntries() default 1000;
+
+    /**
+     * 缓存的最大字节数(请求和答复消息体之和)，大于0时按字节数限制
+     *
+     * @return
+     */
+    long cacheMaxBytes() default 0;
+
+    /**
+     * 合并相同参数的并发SYNC调用，只发送一次请求，所有调用方共享同一个结果
+     * 只适用于幂等的查询方法
+     *
+     * @return
+     */
+    boolean singleFlight() default false;
+
+    /**
+     * 按最近请求耗时的p99的2倍计算SYNC调用的答复超时，不超过FgbClient的replyTimeout，不低于minReplyTimeout；
+     * 样本不足时使用replyTimeout
+     *
+     * @return
+     */
+    boolean adaptiveTimeout() default false;
+
+    /**
+     * 自适应超时的最小值(毫秒)
+     *
+     * @return
+     */
+    int minReplyTimeout() default 100;
+
+    /**
+     * 对冲请求，发出请求hedgeDelay后仍未答复时再发送一次相同请求，使用先到的答复，其余答复丢弃；
+     * 每次调用最多发送FgbClient的maxAttempts次，只适用于幂等方法
+     *
+     * @return
+     */
+    boolean hedge() default false;
+
+    /**
+     * 发送对冲请求前的等待时间(毫秒)，0时使用最近请求耗时的p95，样本不足时不对冲
+     *
+     * @return
+     */
+    long hedgeDelay() default 0;
 }
@@ -1,5 +1,9 @@
 package com.gaad.rabbitmq.fgb.annotation;
 
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.JsonFgbCodec;
+import com.gaad.rabbitmq.fgb.model.enums.FgbCompressionType;
+import com.gaad.rabbitmq.fgb.model.enums.FgbContainerType;
 import com.gaad.rabbitmq.fgb.model.enums.FgbType;
 import org.springframework.stereotype.Component;
 
@@ -31,12 +35,108 @@ public @interface FgbServer {
     int xMessageTTL() default 1000;
 
     /**
+     * 消费者数量，开启自动调整时为最小消费者数量
+     *
      * @return
      */
     int threadNum() default 1;
 
+    /**
+     * 最大消费者数量，大于threadNum时按队列积压和调用耗时在 [threadNum, maxThreadNum] 之间自动调整
+     *
+     * @return
+     */
+    int maxThreadNum() default 0;
+
+    /**
+     * 自动调整时消化积压的目标耗时(毫秒)，积压越多、调用越慢，需要的消费者越多
+     *
+     * @return
+     */
+    long targetLatency() default 1000;
+
+    /**
+     * 自动调整时可接受的队列积压数量，超出部分才计入扩容
+     *
+     * @return
+     */
+    int targetQueueDepth() default 0;
+
     /**
      * @return
      */
     FgbType[] type() default {FgbType.SYNC, FgbType.ASYNC};
+
+    /**
+     * 编解码器，服务端只接受此编解码器和json(含早期版本的text/plain)的消息
+     *
+     * @return
+     */
+    Class<? extends FgbCodec> codec() default JsonFgbCodec.class;
+
+    /**
+     * 存在批量消费方法时，ASYNC监听一次最多接收的消息数
+     *
+     * @return
+     */
+    int batchSize() default 500;
+
+    /**
+     * 存在批量消费方法时，等待下一条消息的最长时间(毫秒)，超时后处理未满的批次
+     *
+     * @return
+     */
+    long batchReceiveTimeout() default 100;
+
+    /**
+     * 执行方法的TaskExecutor bean名称，为空时在消费线程中执行
+     * 指定后消费线程只负责接收，方法在executor中执行，并发数受预取数量限制；
+     * 为 VirtualThreadTaskExecutor.BEAN_NAME 时使用JDK 21虚拟线程，每个调用一个虚拟线程
+     *
+     * @return
+     */
+    String executor() default "";
+
+    /**
+     * 服务监听的容器类型，DEFAULT时使用 spring.rabbitmq.listener.type
+     *
+     * @return
+     */
+    FgbContainerType containerType() default FgbContainerType.DEFAULT;
+
+    /**
+     * 服务监听每个消费者的预取数量，0时使用 spring.rabbitmq.listener.simple/direct.prefetch，未配置时为容器默认值
+     *
+     * @return
+     */
+    int prefetch() default 0;
+
+    /**
+     * ASYNC监听合并确认的消息数，大于1时已处理完成的连续消息攒够该数量后用一次 multiple ack 确认，
+     * 为1时逐条确认；需小于预取数量，否则消费者要等到ackInterval才能收到新消息
+     *
+     * @return
+     */
+    int ackBatchSize() default 1;
+
+    /**
+     * 合并确认的最长间隔(毫秒)，消息不足ackBatchSize时按此间隔确认
+     *
+     * @return
+     */
+    long ackInterval() default 100;
+
+    /**
+     * 答复消息体的压缩方式，只在客户端通过 fgb-accept-encoding 声明可解压时压缩，旧版本客户端收到的答复不压缩
+     *
+     * @return
+     */
+    FgbCompressionType compression() default FgbCompressionType.NONE;
+
+    /**
+     * 消息体达到该字节数才压缩
+     *
+     * @return
+     */
+    int compressThreshold() default 2048;
 }
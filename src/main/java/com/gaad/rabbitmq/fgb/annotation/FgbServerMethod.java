@@ -18,4 +18,34 @@ public @interface FgbServerMethod {
      * @return
      */
     String value() default "";
+
+    /**
+     * 批量消费，方法只能有一个List参数且返回void，每个元素为一次调用的参数
+     * ASYNC调用按FgbServer的batchSize、batchReceiveTimeout攒批后调用一次，整批确认一次；SYNC调用时列表中只有一个元素
+     *
+     * @return
+     */
+    boolean batch() default false;
+
+    /**
+     * SYNC调用结果的缓存时间(毫秒)，大于0时相同请求在有效期内直接答复缓存的结果，不再解码参数和调用方法
+     * 只适用于无副作用的方法，结果为null时不缓存；需客户端为发送 fgb-command 消息头的版本
+     *
+     * @return
+     */
+    long memoTtl() default 0;
+
+    /**
+     * 结果缓存的最大条数
+     *
+     * @return
+     */
+    int memoMaxEntries() default 1000;
+
+    /**
+     * 结果缓存的最大字节数(请求和结果之和)，大于0时按字节数限制
+     *
+     * @return
+     */
+    long memoMaxBytes() default 0;
 }
@@ -0,0 +1,17 @@
+package com.gaad.rabbitmq.fgb.client;
+
+/**
+ * 熔断、并发数或等待确认的消息数超限时拒绝调用，不发送请求，也不记录堆栈
+ * 同步方法直接抛给调用方，返回CompletableFuture、Mono、Flux的方法以此异常结束
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class FgbCallRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public FgbCallRejectedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,190 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SYNC调用熔断器，按最近windowSize次调用的失败率和慢调用率判断
+ * CLOSED时放行所有调用，失败率或慢调用率达到阈值后OPEN，openDuration内直接拒绝；
+ * 之后进入HALF_OPEN，放行halfOpenCalls次探测调用，探测结果仍超过阈值时重新OPEN，否则恢复CLOSED
+ * 失败指发送失败或等待答复超时，服务端方法抛出的异常不计入
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class FgbCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+
+    /**
+     * 失败率阈值(百分比)，0时不按失败率熔断
+     */
+    private final int failureRateThreshold;
+
+    /**
+     * 慢调用耗时(毫秒)，0时不统计慢调用
+     */
+    private final long slowCallThreshold;
+
+    /**
+     * 慢调用率阈值(百分比)
+     */
+    private final int slowCallRateThreshold;
+
+    private final int minimumCalls;
+
+    private final long openDuration;
+
+    private final int halfOpenCalls;
+
+    /**
+     * 最近调用的结果，环形记录，bit0为失败，bit1为慢调用
+     */
+    private final byte[] outcomes;
+
+    private int index;
+
+    private int calls;
+
+    private int failures;
+
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+
+    /**
+     * 状态切换次数，切换前发起的调用完成时不再计入
+     */
+    private long generation;
+
+    private long openedAt;
+
+    /**
+     * HALF_OPEN时剩余可放行的探测调用数
+     */
+    private int halfOpenPermits;
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param name                  熔断器名称
+     * @param failureRateThreshold  失败率阈值(百分比)，0时不按失败率熔断
+     * @param slowCallThreshold     慢调用耗时(毫秒)，0时不统计慢调用
+     * @param slowCallRateThreshold 慢调用率阈值(百分比)
+     * @param windowSize            统计的最近调用次数
+     * @param minimumCalls          窗口内至少有该调用次数才判断是否熔断
+     * @param openDuration          熔断持续时间(毫秒)
+     * @param halfOpenCalls         半开时的探测调用数
+     */
+    public FgbCircuitBreaker(String name, int failureRateThreshold, long slowCallThreshold, int slowCallRateThreshold,
+                             int windowSize, int minimumCalls, long openDuration, int halfOpenCalls) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThreshold = slowCallThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.outcomes = new byte[Math.max(windowSize, 1)];
+        this.minimumCalls = Math.max(Math.min(minimumCalls, this.outcomes.length), 1);
+        this.openDuration = openDuration;
+        this.halfOpenCalls = Math.max(halfOpenCalls, 1);
+    }
+
+    /**
+     * 申请调用许可
+     *
+     * @return 许可，调用完成时传给onComplete；拒绝时返回-1
+     */
+    synchronized long tryAcquire() {
+        if (this.state == State.OPEN) {
+            if (System.currentTimeMillis() - this.openedAt < this.openDuration) {
+                this.rejected.increment();
+                return -1;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (this.state == State.HALF_OPEN) {
+            if (this.halfOpenPermits == 0) {
+                this.rejected.increment();
+                return -1;
+            }
+            this.halfOpenPermits--;
+        }
+        return this.generation;
+    }
+
+    /**
+     * 记录调用结果
+     *
+     * @param permit   tryAcquire返回的许可
+     * @param duration 调用耗时(毫秒)
+     * @param failed   是否失败
+     */
+    synchronized void onComplete(long permit, long duration, boolean failed) {
+        if (permit != this.generation || this.state == State.OPEN) {
+            return;
+        }
+        boolean slow = this.slowCallThreshold > 0 && duration >= this.slowCallThreshold;
+        if (this.calls == this.outcomes.length) {
+            byte evicted = this.outcomes[this.index];
+            this.failures -= evicted & 1;
+            this.slowCalls -= evicted >> 1;
+        } else {
+            this.calls++;
+        }
+        this.outcomes[this.index] = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+        this.index = (this.index + 1) % this.outcomes.length;
+        this.failures += failed ? 1 : 0;
+        this.slowCalls += slow ? 1 : 0;
+        if (this.state == State.HALF_OPEN) {
+            if (this.calls >= this.halfOpenCalls) {
+                transitionTo(exceedsThreshold() ? State.OPEN : State.CLOSED);
+            }
+        } else if (this.calls >= this.minimumCalls && exceedsThreshold()) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private boolean exceedsThreshold() {
+        return (this.failureRateThreshold > 0 && this.failures * 100 >= this.failureRateThreshold * this.calls)
+                || (this.slowCallThreshold > 0 && this.slowCalls * 100 >= this.slowCallRateThreshold * this.calls);
+    }
+
+    /**
+     * 切换状态并清空统计窗口
+     *
+     * @param state 新状态
+     */
+    private void transitionTo(State state) {
+        this.state = state;
+        this.generation++;
+        this.index = 0;
+        this.calls = 0;
+        this.failures = 0;
+        this.slowCalls = 0;
+        if (state == State.OPEN) {
+            this.openedAt = System.currentTimeMillis();
+        } else if (state == State.HALF_OPEN) {
+            this.halfOpenPermits = this.halfOpenCalls;
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FgbCircuitBreaker{name=" + this.name + ", state=" + this.state + ", calls=" + this.calls + ", failures=" + this.failures
+                + ", slowCalls=" + this.slowCalls + ", rejected=" + getRejectedCount() + "}";
+    }
+}
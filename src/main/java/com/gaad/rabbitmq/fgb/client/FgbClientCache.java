@@ -0,0 +1,83 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import com.gaad.rabbitmq.fgb.util.LocalCache;
+import org.springframework.amqp.core.Message;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SYNC调用结果缓存，以编码后的请求(command + 参数)为key缓存答复消息，命中时不再发送请求
+ * 缓存的是答复消息而不是结果对象，每次命中重新解码，调用方修改结果不会影响缓存；结果为null的答复不缓存
+ * 存在caffeine时使用W-TinyLFU淘汰，否则使用LRU
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public class FgbClientCache {
+
+    private final String name;
+
+    private final LocalCache<FgbRequestKey, Message> cache;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param name       缓存名称
+     * @param ttl        写入后的有效时间(毫秒)
+     * @param maxEntries 最大条数
+     * @param maxBytes   最大字节数(请求和答复消息体之和)，0时只按条数限制
+     */
+    public FgbClientCache(String name, long ttl, int maxEntries, long maxBytes) {
+        this.name = name;
+        this.cache = new LocalCache<>(ttl, maxEntries, maxBytes, (key, reply) -> key.length() + reply.getBody().length);
+    }
+
+    /**
+     * 获取缓存的答复
+     *
+     * @param request 编码后的请求
+     * @return 未命中或已过期时返回null
+     */
+    Message get(byte[] request) {
+        Message reply = this.cache.get(new FgbRequestKey(request));
+        if (reply == null) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+        }
+        return reply;
+    }
+
+    /**
+     * 缓存答复
+     *
+     * @param request 编码后的请求
+     * @param reply   答复消息
+     */
+    void put(byte[] request, Message reply) {
+        this.cache.put(new FgbRequestKey(request), reply);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long size() {
+        return this.cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return "FgbClientCache{name=" + this.name + ", size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "}";
+    }
+}
@@ -0,0 +1,330 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import com.alibaba.fastjson.util.ParameterizedTypeImpl;
+import com.gaad.rabbitmq.fgb.annotation.FgbClientMethod;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.metrics.FgbMetrics;
+import com.gaad.rabbitmq.fgb.model.enums.FgbType;
+import com.gaad.rabbitmq.fgb.util.ParamsConverterUtil;
+import com.gaad.rabbitmq.fgb.util.ReactiveConverterUtil;
+import org.springframework.amqp.core.Message;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * FgbClientMethod调用点，代理创建时按方法预先解析注解、校验返回类型，调用时直接使用
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+final class FgbClientCallSite {
+
+    private final Method method;
+
+    /**
+     * 既fgbclientmethod注解的Value值
+     */
+    private final String command;
+
+    private final FgbType fgbType;
+
+    private final FgbCodec codec;
+
+    /**
+     * ASYNC调用是否参与批量发送
+     */
+    private final boolean batch;
+
+    /**
+     * ASYNC调用是否等待broker确认
+     */
+    private final boolean confirm;
+
+    /**
+     * 结果返回方式
+     */
+    private final ResultMode resultMode;
+
+    /**
+     * 合并调用时在途的请求，未开启时为null，启动时设置
+     */
+    private ConcurrentMap<FgbRequestKey, CompletableFuture<Message>> inFlightCalls;
+
+    /**
+     * 结果缓存，未开启时为null，启动时设置
+     */
+    private FgbClientCache cache;
+
+    /**
+     * 自适应超时的最小值，未开启自适应超时时为0
+     */
+    private final int minReplyTimeout;
+
+    /**
+     * 是否发送对冲请求，及固定的对冲等待时间
+     */
+    private final boolean hedge;
+
+    private final long hedgeDelay;
+
+    /**
+     * 答复耗时统计，未开启自适应超时和对冲时为null，启动时设置
+     */
+    private FgbLatencyTracker latencyTracker;
+
+    /**
+     * 调用指标，启动时设置
+     */
+    private FgbMetrics metrics = FgbMetrics.NOOP;
+
+    /**
+     * 熔断器，未开启时为null，启动时设置
+     */
+    private FgbCircuitBreaker circuitBreaker;
+
+    /**
+     * 已解析泛型的结果类型，用于结果解码；异步结果时为泛型参数的类型，Flux时为List
+     */
+    private final Type resultType;
+
+    private FgbClientCallSite(Method method, String command, FgbType fgbType, FgbCodec codec, boolean batch, boolean confirm,
+                              int minReplyTimeout, boolean hedge, long hedgeDelay) {
+        this.method = method;
+        this.command = command;
+        this.fgbType = fgbType;
+        this.codec = codec;
+        this.batch = batch;
+        this.confirm = confirm;
+        this.minReplyTimeout = minReplyTimeout;
+        this.hedge = hedge;
+        this.hedgeDelay = hedgeDelay;
+        this.resultMode = ResultMode.of(method.getReturnType());
+        switch (this.resultMode) {
+            case FUTURE:
+            case MONO:
+                this.resultType = typeArgument(method.getGenericReturnType());
+                break;
+            case FLUX:
+                this.resultType = new ParameterizedTypeImpl(new Type[]{typeArgument(method.getGenericReturnType())}, null, List.class);
+                break;
+            default:
+                this.resultType = method.getGenericReturnType();
+                break;
+        }
+        codec.allowType(this.resultType);
+    }
+
+    /**
+     * 解析调用点，注解配置不合法时直接抛出异常，阻止应用启动
+     *
+     * @param fgbClientInterface fgbClient接口
+     * @param method             接口方法
+     * @param codec              编解码器
+     * @return 非FgbClientMethod方法返回null
+     */
+    static FgbClientCallSite create(Class<?> fgbClientInterface, Method method, FgbCodec codec) {
+        FgbClientMethod fgbClientMethod = method.getAnnotation(FgbClientMethod.class);
+        if (fgbClientMethod == null) {
+            return null;
+        }
+        FgbType fgbType = fgbClientMethod.type();
+        String command = fgbClientMethod.value();
+        if (StringUtils.isEmpty(command)) {
+            command = method.getName();
+        }
+        if (fgbType == FgbType.ASYNC && method.getReturnType() != void.class) {
+            throw new RuntimeException("ASYNC-FgbClient 返回类型只能为 void, Class: " + fgbClientInterface.getName()
+                    + ", Method: " + method.getName());
+        }
+        if (fgbType == FgbType.ASYNC && fgbClientMethod.cacheTtl() > 0) {
+            throw new RuntimeException("ASYNC-FgbClient 不支持结果缓存, Class: " + fgbClientInterface.getName()
+                    + ", Method: " + method.getName());
+        }
+        if (fgbType == FgbType.ASYNC && fgbClientMethod.singleFlight()) {
+            throw new RuntimeException("ASYNC-FgbClient 不支持合并调用, Class: " + fgbClientInterface.getName()
+                    + ", Method: " + method.getName());
+        }
+        if (fgbType == FgbType.ASYNC && (fgbClientMethod.adaptiveTimeout() || fgbClientMethod.hedge())) {
+            throw new RuntimeException("ASYNC-FgbClient 不支持自适应超时和对冲请求, Class: " + fgbClientInterface.getName()
+                    + ", Method: " + method.getName());
+        }
+        boolean confirm = fgbType == FgbType.ASYNC && fgbClientMethod.confirm();
+        return new FgbClientCallSite(method, command, fgbType, codec, fgbType == FgbType.ASYNC && fgbClientMethod.batch() && !confirm, confirm,
+                fgbClientMethod.adaptiveTimeout() ? Math.max(fgbClientMethod.minReplyTimeout(), 1) : 0, fgbClientMethod.hedge(), fgbClientMethod.hedgeDelay());
+    }
+
+    Method getMethod() {
+        return this.method;
+    }
+
+    String getCommand() {
+        return this.command;
+    }
+
+    FgbType getFgbType() {
+        return this.fgbType;
+    }
+
+    boolean isBatch() {
+        return this.batch;
+    }
+
+    boolean isConfirm() {
+        return this.confirm;
+    }
+
+    ResultMode getResultMode() {
+        return this.resultMode;
+    }
+
+    ConcurrentMap<FgbRequestKey, CompletableFuture<Message>> getInFlightCalls() {
+        return this.inFlightCalls;
+    }
+
+    void setInFlightCalls(ConcurrentMap<FgbRequestKey, CompletableFuture<Message>> inFlightCalls) {
+        this.inFlightCalls = inFlightCalls;
+    }
+
+    FgbClientCache getCache() {
+        return this.cache;
+    }
+
+    void setCache(FgbClientCache cache) {
+        this.cache = cache;
+    }
+
+    boolean isHedge() {
+        return this.hedge;
+    }
+
+    FgbLatencyTracker getLatencyTracker() {
+        return this.latencyTracker;
+    }
+
+    void setLatencyTracker(FgbLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
+    /**
+     * 本次调用的答复超时，开启自适应超时时按最近请求耗时的p99计算
+     *
+     * @param replyTimeout FgbClient的replyTimeout
+     * @return
+     */
+    long replyTimeout(int replyTimeout) {
+        if (this.minReplyTimeout == 0) {
+            return replyTimeout;
+        }
+        long p99 = this.latencyTracker.p99();
+        return p99 < 0 ? replyTimeout : Math.min(Math.max(p99 * 2, this.minReplyTimeout), replyTimeout);
+    }
+
+    /**
+     * 发送对冲请求前的等待时间
+     *
+     * @return 不发送对冲请求时返回-1
+     */
+    long hedgeDelay() {
+        if (!this.hedge) {
+            return -1;
+        }
+        return this.hedgeDelay > 0 ? this.hedgeDelay : this.latencyTracker.p95();
+    }
+
+    FgbMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    void setMetrics(FgbMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    FgbCircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    void setCircuitBreaker(FgbCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * 编码调用请求
+     *
+     * @param args 调用参数
+     * @return
+     * @throws IOException
+     */
+    byte[] encodeRequest(Object[] args) throws IOException {
+        return this.codec.encodeRequest(this.command, args);
+    }
+
+    /**
+     * 解码调用结果
+     *
+     * @param replyCodec 回复消息对应的编解码器
+     * @param body       回复消息体
+     * @return
+     * @throws IOException
+     */
+    Object decodeResult(FgbCodec replyCodec, byte[] body) throws IOException {
+        return ParamsConverterUtil.convertReturnType(this.resultType, replyCodec, body);
+    }
+
+    /**
+     * 获取泛型参数的类型，如 CompletableFuture&lt;T&gt; 中的T
+     */
+    private static Type typeArgument(Type genericType) {
+        if (!(genericType instanceof ParameterizedType)) {
+            return Object.class;
+        }
+        Type typeArgument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        if (typeArgument instanceof WildcardType) {
+            return ((WildcardType) typeArgument).getUpperBounds()[0];
+        }
+        return typeArgument;
+    }
+
+    /**
+     * 结果返回方式
+     */
+    enum ResultMode {
+        /**
+         * 阻塞等待结果
+         */
+        BLOCKING,
+        /**
+         * CompletableFuture/CompletionStage
+         */
+        FUTURE,
+        /**
+         * reactor Mono，订阅时发起调用
+         */
+        MONO,
+        /**
+         * reactor Flux，订阅时发起调用，服务端返回集合
+         */
+        FLUX;
+
+        static ResultMode of(Class<?> returnType) {
+            if (returnType == CompletableFuture.class || returnType == CompletionStage.class) {
+                return FUTURE;
+            }
+            if (ReactiveConverterUtil.isMono(returnType)) {
+                return MONO;
+            }
+            if (ReactiveConverterUtil.isFlux(returnType)) {
+                return FLUX;
+            }
+            return BLOCKING;
+        }
+    }
+}
@@ -1,19 +1,45 @@
 package com.gaad.rabbitmq.fgb.client;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
-import com.alibaba.fastjson.JSONObject;
-import com.gaad.rabbitmq.fgb.annotation.FgbClientMethod;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.log.FgbAccessLog;
+import com.gaad.rabbitmq.fgb.log.FgbLatencyBreakdown;
+import com.gaad.rabbitmq.fgb.metrics.FgbMetrics;
+import com.gaad.rabbitmq.fgb.model.constants.FgbHeaderConstant;
+import com.gaad.rabbitmq.fgb.model.enums.FgbCompressionType;
 import com.gaad.rabbitmq.fgb.model.enums.FgbType;
-import com.gaad.rabbitmq.fgb.util.ParamsConverterUtil;
+import com.gaad.rabbitmq.fgb.util.CompressionUtil;
+import com.gaad.rabbitmq.fgb.util.ReactiveConverterUtil;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessagePropertiesBuilder;
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate.RabbitMessageFuture;
 import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
-import org.springframework.util.StringUtils;
+import org.springframework.scheduling.TaskScheduler;
 
 /**
  * fgbclient代理 实现具体的调用 todo
@@ -27,80 +53,640 @@ public class FgbClientProxy implements InvocationHandler {
 
     private final Class<?> fgbClientInterface;
     private final String fgbName;
-    private final RabbitTemplate syncSender;
+    private final FgbCodec codec;
+    private final Map<Method, FgbClientCallSite> callSites;
+    private final AsyncRabbitTemplate syncSender;
     private final RabbitTemplate asyncSender;
-    private final SimpleMessageListenerContainer messageListenerContainer;
 
-    FgbClientProxy(Class<?> fgbClientInterface, String fgbName, RabbitTemplate syncSender, RabbitTemplate asyncSender,
-            SimpleMessageListenerContainer messageListenerContainer) {
+    /**
+     * 批量方法的发送方，未开启批量发送时为null
+     */
+    private final RabbitTemplate batchSender;
+    /**
+     * 自适应超时和对冲请求的定时器，只执行不阻塞的任务
+     */
+    private final TaskScheduler taskScheduler;
+    /**
+     * 发送对冲请求的线程池，发送可能因broker流控阻塞，不在定时器线程中执行；没有对冲方法时为null
+     */
+    private final Executor hedgeExecutor;
+    /**
+     * 访问日志，syncLogSource、asyncLogSource 为日志中的调用方
+     */
+    private final FgbAccessLog accessLog;
+    private final String syncLogSource;
+    private final String asyncLogSource;
+    /**
+     * ASYNC消息的correlationId序号
+     */
+    private final AtomicLong correlationSequence = new AtomicLong();
+    /**
+     * 等待broker确认的消息窗口
+     */
+    private final Semaphore inFlight;
+    private final int inFlightTimeout;
+    /**
+     * SYNC调用等待答复的超时时间，用于计算请求的截止时间
+     */
+    private final int replyTimeout;
+    /**
+     * 每次SYNC调用最多发送请求的次数
+     */
+    private final int maxAttempts;
+    /**
+     * 请求压缩方式和阈值
+     */
+    private final FgbCompressionType compression;
+    private final int compressThreshold;
+    /**
+     * 同时等待答复的SYNC调用数，不限制时为null
+     */
+    private final Semaphore bulkhead;
+
+    FgbClientProxy(Class<?> fgbClientInterface, String fgbName, FgbCodec codec, Map<Method, FgbClientCallSite> callSites,
+            AsyncRabbitTemplate syncSender, RabbitTemplate asyncSender, RabbitTemplate batchSender, TaskScheduler taskScheduler, Executor hedgeExecutor, FgbAccessLog accessLog, int replyTimeout, int maxAttempts,
+            int maxInFlight, int inFlightTimeout,
+            FgbCompressionType compression, int compressThreshold, int maxConcurrentCalls) {
         this.fgbClientInterface = fgbClientInterface;
         this.fgbName = fgbName;
+        this.codec = codec;
+        this.callSites = callSites;
         this.syncSender = syncSender;
         this.asyncSender = asyncSender;
-        this.messageListenerContainer = messageListenerContainer;
+        this.batchSender = batchSender;
+        this.taskScheduler = taskScheduler;
+        this.hedgeExecutor = hedgeExecutor;
+        this.accessLog = accessLog;
+        this.syncLogSource = FgbType.SYNC.getName() + "-FgbClient-" + fgbName;
+        this.asyncLogSource = FgbType.ASYNC.getName() + "-FgbClient-" + fgbName;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.inFlightTimeout = inFlightTimeout;
+        this.replyTimeout = replyTimeout;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.compression = compression;
+        this.compressThreshold = compressThreshold;
+        this.bulkhead = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls) : null;
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        // 获取方法注解
-        FgbClientMethod fgbClientMethod = method.getAnnotation(FgbClientMethod.class);
-        if (fgbClientMethod == null) {
+        // 获取调用点
+        FgbClientCallSite callSite = this.callSites.get(method);
+        if (callSite == null) {
             return method.invoke(this, args);
         }
-        FgbType methodFgbType = fgbClientMethod.type();
-        String methodName = fgbClientMethod.value();
-        if (StringUtils.isEmpty(methodName)) {
-            methodName = method.getName();
-        }
-        // 未初始化完成
-        if (methodFgbType == FgbType.SYNC && !this.messageListenerContainer.isRunning()) {
-            LOGGER.warn("内部fgb，监听器没启动");
-        }
-        if (methodFgbType == FgbType.ASYNC && method.getReturnType() != void.class) {
-            LOGGER.error("ASYNC-FgbClient 返回类型只能为 void, Class: " + this.fgbClientInterface.getName() + ", Method: "
-                    + method.getName());
-            throw new RuntimeException("ASYNC-FgbClient 返回类型只能为 void, Class: " + this.fgbClientInterface.getName()
-                    + ", Method: " + method.getName());
-        }
-        JSONObject data = new JSONObject();
-        if (args != null) {
-            for (int i = 0; i < args.length; i++) {
-                data.put(String.valueOf(i), args[i]);
-            }
+        FgbType methodFgbType = callSite.getFgbType();
+        String methodName = callSite.getCommand();
+        // 非阻塞调用
+        switch (callSite.getResultMode()) {
+            case FUTURE:
+                return invokeFuture(callSite, args);
+            case MONO:
+                return ReactiveConverterUtil.toMono(() -> invokeFuture(callSite, args));
+            case FLUX:
+                return ReactiveConverterUtil.toFlux(() -> invokeFuture(callSite, args));
+            default:
+                break;
         }
-        // 调用参数
-        JSONObject paramData = new JSONObject();
-        paramData.put("command", methodName);
-        paramData.put("data", data);
-        String paramDataJsonString = paramData.toJSONString();
         try {
+            // 调用参数
+            byte[] body = encodeRequest(callSite, args);
+            // 缓存的结果
+            Message cached = cached(callSite, body);
+            if (cached != null) {
+                return decodeResult(callSite, cached);
+            }
+            Message message = createMessage(callSite, body);
             // 异步处理
             if (methodFgbType == FgbType.ASYNC) {
-                CorrelationData correlationData = new CorrelationData();
-                correlationData.setId(paramDataJsonString);
-                asyncSender.correlationConvertAndSend(paramDataJsonString, correlationData);
-                LOGGER.debug(methodFgbType.getName() + "-FgbClient-" + this.fgbName + ", Method: " + methodName
-                        + " Call Success, Param: " + paramDataJsonString);
+                FgbMetrics metrics = callSite.getMetrics();
+                long sendStart = System.nanoTime();
+                metrics.callStarted();
+                try {
+                    if (callSite.isConfirm()) {
+                        sendConfirmed(callSite, message);
+                    } else if (callSite.isBatch() && this.batchSender != null) {
+                        // 由BatchingRabbitTemplate合并发送
+                        this.batchSender.send(this.batchSender.getExchange(), this.batchSender.getRoutingKey(), message, null);
+                    } else {
+                        this.asyncSender.send(this.asyncSender.getExchange(), this.asyncSender.getRoutingKey(), message, new CorrelationData(nextCorrelationId()));
+                    }
+                    long elapsed = System.nanoTime() - sendStart;
+                    metrics.callCompleted(FgbMetrics.SENT, elapsed);
+                    this.accessLog.log(this.asyncLogSource, methodName, elapsed, FgbMetrics.SENT, message);
+                } catch (Exception e) {
+                    long elapsed = System.nanoTime() - sendStart;
+                    metrics.callCompleted(FgbMetrics.ERROR, elapsed);
+                    this.accessLog.log(this.asyncLogSource, methodName, elapsed, FgbMetrics.ERROR, message);
+                    throw e;
+                }
                 return null;
             }
-            // 发起请求并返回结果
+            // 发起请求并等待结果
             long start = System.currentTimeMillis();
-            Object resultJsonStr = syncSender.convertSendAndReceive(paramDataJsonString);
-            if (resultJsonStr == null) {
-                // 无返回任何结果，说明服务器负载过高，没有及时处理请求，导致超时
-                LOGGER.error("Duration: " + (System.currentTimeMillis() - start) + "ms, " + methodFgbType.getName()
-                        + "-FgbClient-" + this.fgbName + ", Method: " + methodName + " Service Unavailable, Param: "
-                        + paramDataJsonString);
-                throw new RuntimeException("请求超时");
-            }
-            // 获取调用结果的状态
-            JSONObject resultJson = JSONObject.parseObject(resultJsonStr.toString());
-            JSONObject _data = resultJson.getJSONObject("_data");
-            return ParamsConverterUtil.convertReturnType(method, _data);
+            Message reply;
+            try {
+                reply = sendAndReceive(callSite, body, message).get();
+            } catch (ExecutionException e) {
+                throw replyException(callSite, start, message, e.getCause());
+            }
+            return decodeResult(callSite, body, reply);
+        } catch (FgbCallRejectedException e) {
+            // 拒绝的调用没有发出请求，不打印堆栈；抛给调用方处理，ASYNC消息不静默丢弃，返回基本类型的方法也不会因null出现NPE
+            LOGGER.warn(e.getMessage());
+            throw e;
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             LOGGER.error(e.getMessage(), e);
             e.printStackTrace();
             return null;
         }
     }
+
+    /**
+     * 发起非阻塞调用
+     *
+     * @param callSite 调用点
+     * @param args     调用参数
+     * @return 调用结果
+     */
+    private CompletableFuture<Object> invokeFuture(FgbClientCallSite callSite, Object[] args) {
+        try {
+            byte[] body = encodeRequest(callSite, args);
+            Message cached = cached(callSite, body);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(decodeResult(callSite, cached));
+            }
+            Message message = createMessage(callSite, body);
+            long start = System.currentTimeMillis();
+            return sendAndReceive(callSite, body, message).handle((reply, e) -> {
+                if (e != null) {
+                    throw replyException(callSite, start, message, e);
+                }
+                return decodeResult(callSite, body, reply);
+            });
+        } catch (Exception e) {
+            if (e instanceof FgbCallRejectedException) {
+                LOGGER.warn(e.getMessage());
+            } else {
+                LOGGER.error(e.getMessage(), e);
+            }
+            CompletableFuture<Object> failure = new CompletableFuture<>();
+            failure.completeExceptionally(e);
+            return failure;
+        }
+    }
+
+    /**
+     * 发送需要broker确认的ASYNC消息，等待确认的消息超过窗口时阻塞调用方，最长等待inFlightTimeout
+     *
+     * @param callSite 调用点
+     * @param message  请求消息
+     * @throws InterruptedException
+     * @throws FgbCallRejectedException 等待超时，消息未发送
+     */
+    private void sendConfirmed(FgbClientCallSite callSite, Message message) throws InterruptedException {
+        if (!this.inFlight.tryAcquire(this.inFlightTimeout, TimeUnit.MILLISECONDS)) {
+            throw new FgbCallRejectedException(callSite.getFgbType().getName() + "-FgbClient-" + this.fgbName + ", Method: " + callSite.getCommand() + " 等待确认的消息过多");
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        CorrelationData correlationData = new CorrelationData(nextCorrelationId());
+        correlationData.getFuture().addCallback(confirm -> {
+            if (released.compareAndSet(false, true)) {
+                this.inFlight.release();
+            }
+            if (confirm != null && !confirm.isAck()) {
+                LOGGER.error(callSite.getFgbType().getName() + "-FgbClient-" + this.fgbName + ", Method: " + callSite.getCommand()
+                        + " Nack, Cause: " + confirm.getReason() + ", CorrelationId: " + correlationData.getId());
+            }
+        }, e -> {
+            if (released.compareAndSet(false, true)) {
+                this.inFlight.release();
+            }
+        });
+        try {
+            this.asyncSender.send(this.asyncSender.getExchange(), this.asyncSender.getRoutingKey(), message, correlationData);
+        } catch (RuntimeException e) {
+            if (released.compareAndSet(false, true)) {
+                this.inFlight.release();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 生成correlationId，只用于关联broker确认
+     *
+     * @return
+     */
+    private String nextCorrelationId() {
+        return Long.toString(this.correlationSequence.incrementAndGet(), Character.MAX_RADIX);
+    }
+
+    /**
+     * 编码调用请求
+     *
+     * @param callSite 调用点
+     * @param args     调用参数
+     * @return
+     * @throws IOException
+     */
+    private byte[] encodeRequest(FgbClientCallSite callSite, Object[] args) throws IOException {
+        long start = System.nanoTime();
+        byte[] body = callSite.encodeRequest(args);
+        callSite.getMetrics().encoded(System.nanoTime() - start);
+        return body;
+    }
+
+    /**
+     * 构建请求消息，超过阈值的请求按配置压缩，批量发送的消息由BatchingRabbitTemplate合并，不单独压缩
+     *
+     * @param callSite 调用点
+     * @param body     编码后的请求
+     * @return
+     * @throws IOException
+     */
+    private Message createMessage(FgbClientCallSite callSite, byte[] body) throws IOException {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(this.codec.getContentType());
+        messageProperties.setHeader(FgbHeaderConstant.COMMAND, callSite.getCommand());
+        messageProperties.setHeader(FgbHeaderConstant.SENT_AT, System.currentTimeMillis());
+        if (callSite.getFgbType() == FgbType.SYNC) {
+            // 告知服务端可解压的压缩方式和截止时间
+            messageProperties.setHeader(FgbHeaderConstant.ACCEPT_ENCODING, CompressionUtil.acceptEncoding());
+            messageProperties.setHeader(FgbHeaderConstant.DEADLINE, System.currentTimeMillis() + callSite.replyTimeout(this.replyTimeout));
+        }
+        if (this.compression != FgbCompressionType.NONE && !callSite.isBatch() && body.length >= this.compressThreshold) {
+            body = CompressionUtil.compress(body, this.compression);
+            messageProperties.setContentEncoding(this.compression.getName());
+        }
+        callSite.getMetrics().requestSize(body.length);
+        return new Message(body, messageProperties);
+    }
+
+    /**
+     * 发送同步请求，开启合并调用时相同请求共用在途的调用
+     *
+     * @param callSite 调用点
+     * @param body     编码后的请求
+     * @param message  请求消息
+     * @return 答复消息，合并调用时为共享的future，调用方不能修改
+     */
+    private CompletableFuture<Message> sendAndReceive(FgbClientCallSite callSite, byte[] body, Message message) {
+        ConcurrentMap<FgbRequestKey, CompletableFuture<Message>> inFlightCalls = callSite.getInFlightCalls();
+        if (inFlightCalls == null) {
+            return sendAndReceive(callSite, message);
+        }
+        FgbRequestKey key = new FgbRequestKey(body);
+        CompletableFuture<Message> shared = new CompletableFuture<>();
+        CompletableFuture<Message> inFlight = inFlightCalls.putIfAbsent(key, shared);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        try {
+            sendAndReceive(callSite, message).whenComplete((reply, e) -> {
+                // 先移除再完成，之后的调用重新发起请求
+                inFlightCalls.remove(key, shared);
+                if (e != null) {
+                    shared.completeExceptionally(e);
+                } else {
+                    shared.complete(reply);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlightCalls.remove(key, shared);
+            shared.completeExceptionally(e);
+        }
+        return shared;
+    }
+
+    /**
+     * 经过并发数限制和熔断器发送同步请求，超出并发数或熔断时直接拒绝
+     *
+     * @param callSite 调用点
+     * @param message  请求消息
+     * @return 答复消息
+     */
+    private CompletableFuture<Message> sendAndReceive(FgbClientCallSite callSite, Message message) {
+        FgbMetrics metrics = callSite.getMetrics();
+        if (this.bulkhead != null && !this.bulkhead.tryAcquire()) {
+            metrics.callRejected();
+            throw new FgbCallRejectedException(callSite.getFgbType().getName() + "-FgbClient-" + this.fgbName + ", Method: " + callSite.getCommand() + " 并发调用过多");
+        }
+        FgbCircuitBreaker circuitBreaker = callSite.getCircuitBreaker();
+        long permit = circuitBreaker == null ? 0 : circuitBreaker.tryAcquire();
+        if (permit < 0) {
+            release();
+            metrics.callRejected();
+            throw new FgbCallRejectedException(callSite.getFgbType().getName() + "-FgbClient-" + this.fgbName + ", Method: " + callSite.getCommand() + " 已熔断");
+        }
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        metrics.callStarted();
+        CompletableFuture<Message> reply;
+        try {
+            if (callSite.isHedge()) {
+                reply = new HedgedCall(callSite, message).start();
+            } else {
+                reply = send(callSite, message, callSite.replyTimeout(this.replyTimeout), this.maxAttempts);
+            }
+        } catch (RuntimeException e) {
+            release();
+            long elapsed = System.nanoTime() - startNanos;
+            metrics.callCompleted(FgbMetrics.ERROR, elapsed);
+            this.accessLog.log(this.syncLogSource, callSite.getCommand(), elapsed, FgbMetrics.ERROR, message);
+            if (circuitBreaker != null) {
+                circuitBreaker.onComplete(permit, System.currentTimeMillis() - start, true);
+            }
+            throw e;
+        }
+        return reply.whenComplete((result, e) -> {
+            release();
+            long elapsed = System.nanoTime() - startNanos;
+            String outcome = e == null ? FgbMetrics.SUCCESS : e instanceof AmqpReplyTimeoutException ? FgbMetrics.TIMEOUT : FgbMetrics.ERROR;
+            metrics.callCompleted(outcome, elapsed);
+            // 按答复带回的服务端时间拆分耗时
+            FgbLatencyBreakdown breakdown = result == null ? null : FgbLatencyBreakdown.replied(result.getMessageProperties(), System.currentTimeMillis());
+            if (breakdown != null && breakdown.getReplyTransit() >= 0) {
+                metrics.replyTransit(breakdown.getReplyTransit());
+            }
+            this.accessLog.log(this.syncLogSource, callSite.getCommand(), elapsed, outcome, message, breakdown);
+            if (circuitBreaker != null) {
+                circuitBreaker.onComplete(permit, System.currentTimeMillis() - start, e != null);
+            }
+        });
+    }
+
+    private void release() {
+        if (this.bulkhead != null) {
+            this.bulkhead.release();
+        }
+    }
+
+    /**
+     * 发送同步请求并等待答复，发送失败时立即重发
+     *
+     * @param callSite 调用点
+     * @param message  请求消息
+     * @param timeout  答复超时，小于replyTimeout时到期后取消等待
+     * @param attempts 最多发送次数
+     * @return 答复消息
+     */
+    private CompletableFuture<Message> send(FgbClientCallSite callSite, Message message, long timeout, int attempts) {
+        FgbLatencyTracker latencyTracker = callSite.getLatencyTracker();
+        long start = System.currentTimeMillis();
+        RabbitMessageFuture future = publish(callSite, message, attempts);
+        if (latencyTracker == null && timeout >= this.replyTimeout) {
+            return future.completable();
+        }
+        CompletableFuture<Message> reply = new CompletableFuture<>();
+        ScheduledFuture<?> timer = timeout >= this.replyTimeout ? null : this.taskScheduler.schedule(() -> {
+            if (reply.completeExceptionally(new AmqpReplyTimeoutException("Reply timed out", message))) {
+                future.cancel(true);
+                if (latencyTracker != null) {
+                    latencyTracker.record(timeout);
+                }
+            }
+        }, new Date(start + timeout));
+        future.addCallback(result -> {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (latencyTracker != null) {
+                latencyTracker.record(System.currentTimeMillis() - start);
+            }
+            reply.complete(result);
+        }, e -> {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (latencyTracker != null && e instanceof AmqpReplyTimeoutException) {
+                latencyTracker.record(System.currentTimeMillis() - start);
+            }
+            reply.completeExceptionally(e);
+        });
+        return reply;
+    }
+
+    /**
+     * 发布同步请求，发送失败时使用同一correlationId立即重发
+     *
+     * @param callSite 调用点
+     * @param message  请求消息
+     * @param attempts 最多发送次数
+     * @return
+     */
+    private RabbitMessageFuture publish(FgbClientCallSite callSite, Message message, int attempts) {
+        // 未初始化完成
+        if (!this.syncSender.isRunning()) {
+            LOGGER.warn("内部fgb，监听器没启动");
+            this.syncSender.start();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return this.syncSender.sendAndReceive(message);
+            } catch (AmqpException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                LOGGER.warn("内部fgb，第" + attempt + "次发送失败，立即重发, Cause: " + e.getMessage());
+                callSite.getMetrics().retried(FgbMetrics.RESEND);
+            }
+        }
+    }
+
+    /**
+     * 获取缓存的答复
+     *
+     * @param callSite 调用点
+     * @param body     编码后的请求
+     * @return 未开启缓存或未命中时返回null
+     */
+    private Message cached(FgbClientCallSite callSite, byte[] body) {
+        FgbClientCache cache = callSite.getCache();
+        return cache == null ? null : cache.get(body);
+    }
+
+    /**
+     * 解码调用结果，开启缓存时缓存结果不为null的答复
+     *
+     * @param callSite 调用点
+     * @param body     编码后的请求
+     * @param reply    答复消息
+     * @return
+     */
+    private Object decodeResult(FgbClientCallSite callSite, byte[] body, Message reply) {
+        Object result = decodeResult(callSite, reply);
+        if (result != null && callSite.getCache() != null) {
+            callSite.getCache().put(body, reply);
+        }
+        return result;
+    }
+
+    /**
+     * 按答复消息的content-type解码调用结果
+     *
+     * @param callSite 调用点
+     * @param reply    答复消息
+     * @return
+     */
+    private Object decodeResult(FgbClientCallSite callSite, Message reply) {
+        FgbCodec replyCodec = FgbCodecRegistry.getCodec(reply.getMessageProperties().getContentType(), this.codec);
+        long start = System.nanoTime();
+        try {
+            return callSite.decodeResult(replyCodec, CompressionUtil.decompress(reply.getBody(), reply.getMessageProperties().getContentEncoding()));
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        } finally {
+            callSite.getMetrics().decoded(System.nanoTime() - start);
+            callSite.getMetrics().replySize(reply.getBody().length);
+        }
+    }
+
+    /**
+     * 转换答复异常
+     *
+     * @param callSite 调用点
+     * @param start    开始调用时间
+     * @param message  请求消息
+     * @param e        异常
+     * @return
+     */
+    private RuntimeException replyException(FgbClientCallSite callSite, long start, Message message, Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof AmqpReplyTimeoutException) {
+            // 无返回任何结果，说明服务器负载过高，没有及时处理请求，导致超时
+            LOGGER.error("Duration: " + (System.currentTimeMillis() - start) + "ms, " + callSite.getFgbType().getName()
+                    + "-FgbClient-" + this.fgbName + ", Method: " + callSite.getCommand() + " Service Unavailable, Param: "
+                    + this.accessLog.payload(message));
+            return new RuntimeException("请求超时", e);
+        }
+        return e instanceof RuntimeException ? (RuntimeException) e : new CompletionException(e);
+    }
+
+    /**
+     * 对冲调用，请求发出hedgeDelay后仍未答复时再发送一次相同请求，先到的答复作为结果
+     * 所有请求共用同一个截止时间，发送失败且没有在途请求时立即重发，最多发送maxAttempts次；对冲请求在hedgeExecutor中发送；
+     * 未采用的请求不取消，答复到达后丢弃，其耗时仍计入统计
+     */
+    private final class HedgedCall {
+
+        private final FgbClientCallSite callSite;
+
+        private final Message message;
+
+        private final long deadline;
+
+        private final long hedgeDelay;
+
+        private final CompletableFuture<Message> reply = new CompletableFuture<>();
+
+        private int sent;
+
+        private int outstanding;
+
+        private ScheduledFuture<?> hedgeTask;
+
+        HedgedCall(FgbClientCallSite callSite, Message message) {
+            this.callSite = callSite;
+            this.message = message;
+            this.deadline = System.currentTimeMillis() + callSite.replyTimeout(FgbClientProxy.this.replyTimeout);
+            this.hedgeDelay = callSite.hedgeDelay();
+        }
+
+        CompletableFuture<Message> start() {
+            send(this.message, null);
+            return this.reply;
+        }
+
+        /**
+         * @param message 请求消息
+         * @param reason  重发原因，首次发送时为null
+         */
+        private void send(Message message, String reason) {
+            synchronized (this) {
+                if (this.reply.isDone()) {
+                    return;
+                }
+                this.sent++;
+                this.outstanding++;
+            }
+            if (reason != null) {
+                this.callSite.getMetrics().retried(reason);
+            }
+            CompletableFuture<Message> attempt;
+            try {
+                attempt = FgbClientProxy.this.send(this.callSite, message, this.deadline - System.currentTimeMillis(), 1);
+            } catch (RuntimeException e) {
+                failed(e);
+                return;
+            }
+            synchronized (this) {
+                // 请求发出后再复制消息，避免与发送时设置的correlationId冲突
+                if (!this.reply.isDone() && this.sent < FgbClientProxy.this.maxAttempts && this.hedgeDelay >= 0) {
+                    this.hedgeTask = FgbClientProxy.this.taskScheduler.schedule(this::hedge, new Date(System.currentTimeMillis() + this.hedgeDelay));
+                }
+            }
+            attempt.whenComplete((result, e) -> {
+                if (e != null) {
+                    failed(e);
+                } else if (this.reply.complete(result)) {
+                    cancelHedge();
+                }
+            });
+        }
+
+        /**
+         * 定时器到期后交给hedgeExecutor发送，定时器线程不等待发送完成
+         */
+        private void hedge() {
+            try {
+                FgbClientProxy.this.hedgeExecutor.execute(() -> send(copy(this.message), FgbMetrics.HEDGE));
+            } catch (RejectedExecutionException e) {
+                // 线程池已关闭，不再对冲，等待已发出的请求
+                LOGGER.warn("内部fgb，对冲请求未发送, Method: " + this.callSite.getCommand() + ", Cause: " + e.getMessage());
+            }
+        }
+
+        private void failed(Throwable e) {
+            boolean retry;
+            synchronized (this) {
+                this.outstanding--;
+                if (this.outstanding > 0 || this.reply.isDone()) {
+                    return;
+                }
+                // 超时说明所有请求都已到期
+                retry = this.sent < FgbClientProxy.this.maxAttempts && !(e instanceof AmqpReplyTimeoutException)
+                        && this.deadline > System.currentTimeMillis();
+            }
+            cancelHedge();
+            if (retry) {
+                send(copy(this.message), FgbMetrics.RESEND);
+            } else {
+                this.reply.completeExceptionally(e);
+            }
+        }
+
+        private synchronized void cancelHedge() {
+            if (this.hedgeTask != null) {
+                this.hedgeTask.cancel(false);
+                this.hedgeTask = null;
+            }
+        }
+
+        /**
+         * 复制请求消息，清除发送时设置的correlationId和replyTo，更新发送时间
+         */
+        private Message copy(Message message) {
+            MessageProperties messageProperties = MessagePropertiesBuilder.fromClonedProperties(message.getMessageProperties()).build();
+            messageProperties.setCorrelationId(null);
+            messageProperties.setReplyTo(null);
+            messageProperties.setHeader(FgbHeaderConstant.SENT_AT, System.currentTimeMillis());
+            return new Message(message.getBody(), messageProperties);
+        }
+    }
 }
@@ -1,13 +1,26 @@
 package com.gaad.rabbitmq.fgb.client;
 
 import com.gaad.rabbitmq.fgb.annotation.FgbClient;
+import com.gaad.rabbitmq.fgb.annotation.FgbClientMethod;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.log.FgbAccessLog;
+import com.gaad.rabbitmq.fgb.metrics.FgbMetrics;
+import com.gaad.rabbitmq.fgb.metrics.FgbMetricsRegistry;
+import com.gaad.rabbitmq.fgb.model.enums.FgbContainerType;
 import com.gaad.rabbitmq.fgb.model.enums.FgbType;
+import com.gaad.rabbitmq.fgb.util.CompressionUtil;
+import com.gaad.rabbitmq.fgb.util.FgbBatchingStrategy;
+import com.gaad.rabbitmq.fgb.util.ListenerContainerUtil;
 import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.BatchingRabbitTemplate;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
@@ -15,23 +28,36 @@ import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
-import org.springframework.retry.policy.SimpleRetryPolicy;
-import org.springframework.retry.support.RetryTemplate;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author loken
  * @date 2020/12/3
  */
-public class FgbClientProxyFactory implements FactoryBean, BeanFactoryAware {
+public class FgbClientProxyFactory implements FactoryBean, BeanFactoryAware, EnvironmentAware {
 
     private BeanFactory beanFactory;
+    private Environment environment;
     private Class<?> fgbClientInterface;
     private ConnectionFactory connectionFactory;
     private DirectExchange syncReplyDirectExchange;
+    private ThreadPoolTaskScheduler taskScheduler;
+    private ThreadPoolTaskExecutor hedgeExecutor;
+    private ThreadPoolTaskScheduler batchScheduler;
 
     public FgbClientProxyFactory(Class<?> fgbClientInterface) {
         this.fgbClientInterface = fgbClientInterface;
@@ -53,26 +79,109 @@ public class FgbClientProxyFactory implements FactoryBean, BeanFactoryAware {
         this.beanFactory = beanFactory;
     }
 
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
     @Override
     public Object getObject() throws Exception {
         RabbitTemplate sender;
-        SimpleMessageListenerContainer replyMessageListenerContainer = null;
+        AbstractMessageListenerContainer replyMessageListenerContainer = null;
         FgbClient fgbClient = this.fgbClientInterface.getAnnotation(FgbClient.class);
         String fgbName = fgbClient.value();
         int replyTimeout = fgbClient.replyTimeout();
         int maxAttempts = fgbClient.maxAttempts();
+        FgbCodec codec = FgbCodecRegistry.getCodec(fgbClient.codec());
+        /**
+         * 解析调用点
+         */
+        Map<Method, FgbClientCallSite> callSites = callSites(fgbName, fgbClient, codec);
+        checkPublisherConfirms(callSites.values(), getConnectionFactory());
+        CompressionUtil.checkAvailable(fgbClient.compression());
         /**
          * 初始化同步队列
          */
-        Queue replyQueue = replyQueue(fgbName, UUID.randomUUID().toString());
-        replyBinding(fgbName, replyQueue);
-        RabbitTemplate syncSender = syncSender(fgbName, replyQueue, replyTimeout, maxAttempts, getConnectionFactory());
-        replyMessageListenerContainer = replyMessageListenerContainer(fgbName, replyQueue, syncSender, getConnectionFactory());
+        RabbitTemplate syncSender = syncSender(fgbName, getConnectionFactory());
+        AsyncRabbitTemplate replySender;
+        if (fgbClient.directReplyTo()) {
+            replySender = directReplySender(fgbName, syncSender, replyTimeout);
+        } else {
+            Queue replyQueue = replyQueue(fgbName, UUID.randomUUID().toString());
+            replyBinding(fgbName, replyQueue);
+            replyMessageListenerContainer = replyMessageListenerContainer(fgbName, fgbClient, replyQueue, getConnectionFactory());
+            replySender = replySender(fgbName, syncSender, replyMessageListenerContainer, replyQueue, replyTimeout);
+        }
         /**
          * 初始化异步队列
          */
-        RabbitTemplate asyncSender = asyncSender(fgbName, getConnectionFactory());
-        return Proxy.newProxyInstance(this.fgbClientInterface.getClassLoader(), new Class[]{this.fgbClientInterface}, new FgbClientProxy(this.fgbClientInterface, fgbName, syncSender, asyncSender, replyMessageListenerContainer));
+        RabbitTemplate asyncSender = asyncSender(FgbType.ASYNC.getName() + "-Sender-" + fgbName, fgbName, RabbitTemplate.class, getConnectionFactory());
+        RabbitTemplate batchSender = null;
+        if (fgbClient.batchSize() > 1 && callSites.values().stream().anyMatch(FgbClientCallSite::isBatch)) {
+            FgbBatchingStrategy batchingStrategy = new FgbBatchingStrategy(fgbClient.batchSize(), fgbClient.batchMaxBytes(), fgbClient.batchLinger());
+            batchSender = asyncSender(FgbType.ASYNC.getName() + "-BatchSender-" + fgbName, fgbName, BatchingRabbitTemplate.class, getConnectionFactory(), batchingStrategy, getBatchScheduler());
+        }
+        return Proxy.newProxyInstance(this.fgbClientInterface.getClassLoader(), new Class[]{this.fgbClientInterface}, new FgbClientProxy(this.fgbClientInterface, fgbName, codec, callSites, replySender, asyncSender, batchSender, getTaskScheduler(), hedgeExecutor(callSites.values()), FgbAccessLog.of(this.environment), replyTimeout, maxAttempts, fgbClient.maxInFlight(), replyTimeout,
+                fgbClient.compression(), fgbClient.compressThreshold(), fgbClient.maxConcurrentCalls()));
+    }
+
+    /**
+     * 解析接口中所有FgbClientMethod的调用点
+     * 开启结果缓存的调用点注册FgbClientCache，开启合并调用的调用点设置在途请求，开启自适应超时或对冲的调用点设置耗时统计，
+     * 开启熔断的SYNC调用点注册FgbCircuitBreaker，在途请求、耗时统计、调用指标和熔断器同一command的方法共用
+     *
+     * @param fgbName   fgb名称
+     * @param fgbClient fgbClient注解
+     * @param codec     编解码器
+     * @return
+     */
+    private Map<Method, FgbClientCallSite> callSites(String fgbName, FgbClient fgbClient, FgbCodec codec) {
+        Map<Method, FgbClientCallSite> callSites = new HashMap<>();
+        Map<String, ConcurrentMap<FgbRequestKey, CompletableFuture<Message>>> inFlightCalls = new HashMap<>();
+        Map<String, FgbLatencyTracker> latencyTrackers = new HashMap<>();
+        Map<String, FgbMetrics> metrics = new HashMap<>();
+        FgbMetricsRegistry metricsRegistry = FgbMetricsRegistry.of(this.beanFactory, this.environment);
+        boolean circuitBreaker = fgbClient.failureRateThreshold() > 0 || fgbClient.slowCallThreshold() > 0;
+        for (Method method : this.fgbClientInterface.getMethods()) {
+            FgbClientCallSite callSite = FgbClientCallSite.create(this.fgbClientInterface, method, codec);
+            if (callSite != null) {
+                FgbClientMethod fgbClientMethod = method.getAnnotation(FgbClientMethod.class);
+                if (fgbClientMethod.cacheTtl() > 0) {
+                    String cacheName = FgbType.SYNC.getName() + "-FgbClientCache-" + fgbName + "-" + callSite.getCommand();
+                    callSite.setCache(registerBean(cacheName, FgbClientCache.class, cacheName, fgbClientMethod.cacheTtl(), fgbClientMethod.cacheMaxEntries(), fgbClientMethod.cacheMaxBytes()));
+                }
+                if (fgbClientMethod.singleFlight()) {
+                    callSite.setInFlightCalls(inFlightCalls.computeIfAbsent(callSite.getCommand(), command -> new ConcurrentHashMap<>()));
+                }
+                callSite.setMetrics(metrics.computeIfAbsent(callSite.getCommand(), command -> metricsRegistry.client(fgbName, callSite.getFgbType(), command)));
+                if (fgbClientMethod.adaptiveTimeout() || fgbClientMethod.hedge()) {
+                    callSite.setLatencyTracker(latencyTrackers.computeIfAbsent(callSite.getCommand(), command -> new FgbLatencyTracker()));
+                }
+                if (circuitBreaker && callSite.getFgbType() == FgbType.SYNC) {
+                    String circuitBreakerName = FgbType.SYNC.getName() + "-FgbCircuitBreaker-" + fgbName + "-" + callSite.getCommand();
+                    callSite.setCircuitBreaker(registerBean(circuitBreakerName, FgbCircuitBreaker.class, circuitBreakerName, fgbClient.failureRateThreshold(),
+                            fgbClient.slowCallThreshold(), fgbClient.slowCallRateThreshold(), fgbClient.circuitWindowSize(), fgbClient.circuitMinimumCalls(),
+                            fgbClient.circuitOpenDuration(), fgbClient.circuitHalfOpenCalls()));
+                }
+                callSites.put(method, callSite);
+            }
+        }
+        return Collections.unmodifiableMap(callSites);
+    }
+
+    /**
+     * 存在需要broker确认的方法时，连接工厂必须开启publisher confirms
+     *
+     * @param callSites         调用点
+     * @param connectionFactory rabbitmq连接工厂
+     */
+    private void checkPublisherConfirms(Collection<FgbClientCallSite> callSites, ConnectionFactory connectionFactory) {
+        for (FgbClientCallSite callSite : callSites) {
+            if (callSite.isConfirm() && !connectionFactory.isPublisherConfirms()) {
+                throw new RuntimeException("FgbClient: " + this.fgbClientInterface.getName() + ", Method: " + callSite.getMethod().getName()
+                        + " 需要broker确认，请配置 spring.rabbitmq.publisher-confirm-type=correlated");
+            }
+        }
     }
 
     /**
@@ -119,43 +228,120 @@ public class FgbClientProxyFactory implements FactoryBean, BeanFactoryAware {
         return this.connectionFactory;
     }
 
+    /**
+     * 实例化超时调度器，所有FgbClient共用，单线程，只执行答复超时和对冲到期等不阻塞的任务，发送消息不在此执行
+     * 取消的超时任务立即移除，避免大量在途请求时任务堆积
+     *
+     * @return
+     */
+    private ThreadPoolTaskScheduler getTaskScheduler() {
+        if (this.taskScheduler == null) {
+            this.taskScheduler = registerBean("fgbClientTaskScheduler", ThreadPoolTaskScheduler.class);
+            this.taskScheduler.setRemoveOnCancelPolicy(true);
+        }
+        return this.taskScheduler;
+    }
+
+    /**
+     * 实例化批量发送的调度器，所有FgbClient共用，到达batchLinger时在此发送批次
+     * 发送可能因broker流控阻塞，与超时调度器分开，避免阻塞答复超时；线程数由 spring.rabbitmq.fgb.client.batch-pool-size 配置，默认1
+     * 每次合并消息都会取消并重新调度发送任务，取消的任务立即移除
+     *
+     * @return
+     */
+    private ThreadPoolTaskScheduler getBatchScheduler() {
+        if (this.batchScheduler == null) {
+            this.batchScheduler = registerBean("fgbClientBatchScheduler", ThreadPoolTaskScheduler.class);
+            this.batchScheduler.setRemoveOnCancelPolicy(true);
+            this.batchScheduler.setPoolSize(this.environment.getProperty("spring.rabbitmq.fgb.client.batch-pool-size", Integer.class, 1));
+        }
+        return this.batchScheduler;
+    }
+
+    /**
+     * 实例化发送对冲请求的线程池，所有FgbClient共用，存在对冲方法时才实例化
+     * 发送可能因broker流控阻塞，与超时调度器分开，避免阻塞答复超时；线程数由 spring.rabbitmq.fgb.client.hedge-pool-size 配置，默认4
+     *
+     * @param callSites 调用点
+     * @return 没有对冲方法时返回null
+     */
+    private ThreadPoolTaskExecutor hedgeExecutor(Collection<FgbClientCallSite> callSites) {
+        if (callSites.stream().noneMatch(FgbClientCallSite::isHedge)) {
+            return null;
+        }
+        if (this.hedgeExecutor == null) {
+            this.hedgeExecutor = registerBean("fgbClientHedgeExecutor", ThreadPoolTaskExecutor.class);
+            this.hedgeExecutor.setCorePoolSize(this.environment.getProperty("spring.rabbitmq.fgb.client.hedge-pool-size", Integer.class, 4));
+        }
+        return this.hedgeExecutor;
+    }
+
     /**
      * 实例化同步发送队列
+     * 不配置RetryTemplate，发送失败和对冲请求由FgbClientProxy按maxAttempts重发
      *
      * @param fgbName           fgb名称
-     * @param replyQueue        答复队列
-     * @param replyTimeout      答复超时时间
-     * @param maxAttempts       最大尝试次数
      * @param connectionFactory rabbitmq连接工厂
      * @return
      */
-    private RabbitTemplate syncSender(String fgbName, Queue replyQueue, int replyTimeout, int maxAttempts, ConnectionFactory connectionFactory) {
-        SimpleRetryPolicy simpleRetryPolicy = new SimpleRetryPolicy();
-        simpleRetryPolicy.setMaxAttempts(maxAttempts);
-        RetryTemplate retryTemplate = new RetryTemplate();
-        retryTemplate.setRetryPolicy(simpleRetryPolicy);
+    private RabbitTemplate syncSender(String fgbName, ConnectionFactory connectionFactory) {
         RabbitTemplate syncSender = registerBean(FgbType.SYNC.getName() + "-Sender-" + fgbName, RabbitTemplate.class, connectionFactory);
         syncSender.setDefaultReceiveQueue(fgbName);
         syncSender.setRoutingKey(fgbName);
-        syncSender.setReplyAddress(replyQueue.getName());
-        syncSender.setReplyTimeout(replyTimeout);
-        syncSender.setRetryTemplate(retryTemplate);
         return syncSender;
     }
 
+    /**
+     * 实例化答复关联器
+     * 按correlationId异步匹配答复消息，等待答复期间不占用调用线程，同步调用在其之上阻塞等待
+     *
+     * @param fgbName                       fgb名称
+     * @param syncSender                    同步发送者
+     * @param replyMessageListenerContainer 答复队列的监听
+     * @param replyQueue                    答复队列
+     * @param replyTimeout                  答复超时时间
+     * @return
+     */
+    private AsyncRabbitTemplate replySender(String fgbName, RabbitTemplate syncSender, AbstractMessageListenerContainer replyMessageListenerContainer, Queue replyQueue, int replyTimeout) {
+        AsyncRabbitTemplate replySender = registerBean(FgbType.SYNC.getName() + "-ReplySender-" + fgbName, AsyncRabbitTemplate.class, syncSender, replyMessageListenerContainer, replyQueue.getName());
+        replySender.setReceiveTimeout(replyTimeout);
+        replySender.setTaskScheduler(getTaskScheduler());
+        return replySender;
+    }
+
+    /**
+     * 实例化direct reply-to答复关联器
+     * 答复直接投递到发送请求的channel，无需声明答复队列，按需复用channel上的消费者
+     *
+     * @param fgbName      fgb名称
+     * @param syncSender   同步发送者
+     * @param replyTimeout 答复超时时间
+     * @return
+     */
+    private AsyncRabbitTemplate directReplySender(String fgbName, RabbitTemplate syncSender, int replyTimeout) {
+        AsyncRabbitTemplate replySender = registerBean(FgbType.SYNC.getName() + "-ReplySender-" + fgbName, AsyncRabbitTemplate.class, syncSender);
+        replySender.setReceiveTimeout(replyTimeout);
+        replySender.setTaskScheduler(getTaskScheduler());
+        return replySender;
+    }
+
     /**
      * 实现答复队列的监听
      *
      * @param fgbName           fgb名称
+     * @param fgbClient         fgbClient注解
      * @param queue             答复队列
-     * @param syncSender        发送者
      * @param connectionFactory rabbitmq连接工厂
      * @return
      */
-    private SimpleMessageListenerContainer replyMessageListenerContainer(String fgbName, Queue queue, RabbitTemplate syncSender, ConnectionFactory connectionFactory) {
-        SimpleMessageListenerContainer replyMessageListenerContainer = registerBean(FgbType.SYNC.getName() + "-ReplyMessageListenerContainer-" + fgbName, SimpleMessageListenerContainer.class, connectionFactory);
+    private AbstractMessageListenerContainer replyMessageListenerContainer(String fgbName, FgbClient fgbClient, Queue queue, ConnectionFactory connectionFactory) {
+        FgbContainerType containerType = ListenerContainerUtil.resolveType(fgbClient.containerType(), this.environment);
+        AbstractMessageListenerContainer replyMessageListenerContainer = registerBean(FgbType.SYNC.getName() + "-ReplyMessageListenerContainer-" + fgbName, ListenerContainerUtil.containerClass(containerType), connectionFactory);
         replyMessageListenerContainer.setQueueNames(queue.getName());
-        replyMessageListenerContainer.setMessageListener(syncSender);
+        int prefetch = ListenerContainerUtil.resolvePrefetch(fgbClient.prefetch(), containerType, this.environment);
+        if (prefetch > 0) {
+            replyMessageListenerContainer.setPrefetchCount(prefetch);
+        }
         return replyMessageListenerContainer;
     }
 
@@ -164,12 +350,17 @@ public class FgbClientProxyFactory implements FactoryBean, BeanFactoryAware {
      * 为保证消息的百分百投递，可以在此处加上 RabbitTemplate.ConfirmCallback 处理和  RabbitTemplate.ReturnCallback 处理
      * todo 给出默认的实现
      *
-     * @param fgbName           fgb名称
-     * @param connectionFactory rabbitmq连接工厂
+     * 开启批量发送且存在批量方法时另外实例化BatchingRabbitTemplate，按条数、字节数、等待时间合并消息，应用关闭时发送剩余批次；
+     * BatchingRabbitTemplate的发送是串行的，非批量方法使用普通的RabbitTemplate
+     *
+     * @param beanName bean名称
+     * @param fgbName  fgb名称
+     * @param clazz    RabbitTemplate或BatchingRabbitTemplate
+     * @param args     构造参数
      * @return
      */
-    private RabbitTemplate asyncSender(String fgbName, ConnectionFactory connectionFactory) {
-        RabbitTemplate asyncSender = registerBean(FgbType.ASYNC.getName() + "-Sender-" + fgbName, RabbitTemplate.class, connectionFactory);
+    private RabbitTemplate asyncSender(String beanName, String fgbName, Class<? extends RabbitTemplate> clazz, Object... args) {
+        RabbitTemplate asyncSender = registerBean(beanName, clazz, args);
         asyncSender.setDefaultReceiveQueue(fgbName + ".async");
         asyncSender.setRoutingKey(fgbName + ".async");
         return asyncSender;
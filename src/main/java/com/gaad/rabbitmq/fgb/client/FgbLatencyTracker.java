@@ -0,0 +1,84 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SYNC请求的答复耗时统计，保留最近SIZE次请求的耗时，按需计算分位数
+ * 分位数最多每REFRESH_INTERVAL毫秒重新计算一次，计算期间其他线程使用上次的结果；超时的请求按超时时间记录
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+final class FgbLatencyTracker {
+
+    private static final int SIZE = 1024;
+
+    /**
+     * 样本少于该数量时不计算分位数
+     */
+    private static final int MIN_SAMPLES = 100;
+
+    private static final long REFRESH_INTERVAL = 100;
+
+    /**
+     * 环形记录的耗时(毫秒)，并发写入时可能丢失个别样本
+     */
+    private final int[] samples = new int[SIZE];
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile long refreshedAt;
+
+    private volatile long p95 = -1;
+
+    private volatile long p99 = -1;
+
+    /**
+     * 记录一次请求的耗时
+     *
+     * @param millis 耗时(毫秒)
+     */
+    void record(long millis) {
+        long n = this.count.getAndIncrement();
+        this.samples[(int) (n & (SIZE - 1))] = (int) Math.min(millis, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return 最近请求耗时的p95，样本不足时返回-1
+     */
+    long p95() {
+        refresh();
+        return this.p95;
+    }
+
+    /**
+     * @return 最近请求耗时的p99，样本不足时返回-1
+     */
+    long p99() {
+        refresh();
+        return this.p99;
+    }
+
+    private void refresh() {
+        long now = System.currentTimeMillis();
+        if (now - this.refreshedAt < REFRESH_INTERVAL || !this.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int size = (int) Math.min(this.count.get(), SIZE);
+            if (size >= MIN_SAMPLES) {
+                int[] sorted = Arrays.copyOf(this.samples, size);
+                Arrays.sort(sorted);
+                this.p95 = sorted[(int) Math.ceil(size * 0.95) - 1];
+                this.p99 = sorted[(int) Math.ceil(size * 0.99) - 1];
+            }
+            this.refreshedAt = now;
+        } finally {
+            this.refreshing.set(false);
+        }
+    }
+}
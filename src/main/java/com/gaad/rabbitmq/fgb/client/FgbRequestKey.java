@@ -0,0 +1,35 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import java.util.Arrays;
+
+/**
+ * 以编码后的请求(command + 参数)标识一次调用，用于结果缓存和合并相同的在途调用
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+final class FgbRequestKey {
+
+    private final byte[] request;
+
+    private final int hash;
+
+    FgbRequestKey(byte[] request) {
+        this.request = request;
+        this.hash = Arrays.hashCode(request);
+    }
+
+    int length() {
+        return this.request.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof FgbRequestKey && this.hash == ((FgbRequestKey) o).hash && Arrays.equals(this.request, ((FgbRequestKey) o).request));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+}
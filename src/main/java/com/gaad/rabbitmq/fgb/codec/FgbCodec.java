@@ -0,0 +1,73 @@
+package com.gaad.rabbitmq.fgb.codec;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * fgb消息编解码SPI
+ * <p>
+ * 客户端通过 {@link com.gaad.rabbitmq.fgb.annotation.FgbClient#codec()} 选择编码方式，
+ * 并将 {@link #getContentType()} 写入AMQP的content-type；服务端只接受json(含早期版本的text/plain)
+ * 和 {@link com.gaad.rabbitmq.fgb.annotation.FgbServer#codec()} 配置的编解码器，回复时使用同一个编解码器。
+ * 自定义实现需提供无参构造方法，可通过 META-INF/services/com.gaad.rabbitmq.fgb.codec.FgbCodec 注册。
+ * 实现必须是线程安全的。
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public interface FgbCodec {
+
+    /**
+     * 编解码器对应的AMQP content-type
+     *
+     * @return
+     */
+    String getContentType();
+
+    /**
+     * 编码调用请求
+     *
+     * @param command 既fgbclientmethod注解的Value值
+     * @param args    调用参数
+     * @return
+     * @throws IOException
+     */
+    byte[] encodeRequest(String command, Object[] args) throws IOException;
+
+    /**
+     * 解码调用请求
+     *
+     * @param body 消息体
+     * @return
+     * @throws IOException
+     */
+    FgbRequest decodeRequest(byte[] body) throws IOException;
+
+    /**
+     * 编码调用结果
+     *
+     * @param result 调用结果，可以为null
+     * @return
+     * @throws IOException
+     */
+    byte[] encodeResult(Object result) throws IOException;
+
+    /**
+     * 解码调用结果
+     *
+     * @param body       消息体
+     * @param resultType 结果类型
+     * @return
+     * @throws IOException
+     */
+    Object decodeResult(byte[] body, Type resultType) throws IOException;
+
+    /**
+     * 声明本端会解码的类型，启动时按服务端方法的参数类型和客户端方法的结果类型调用，
+     * 需要限制可反序列化类的实现据此建立白名单，默认不做处理
+     *
+     * @param type 参数或结果类型
+     */
+    default void allowType(Type type) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.gaad.rabbitmq.fgb.codec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编解码器注册中心，按实现类缓存编解码器单例
+ * 收到的消息只按json(含早期版本的text/plain)或本端配置的编解码器解码，不按content-type选择其他已注册的编解码器，
+ * 避免服务端解码未配置的二进制格式
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public final class FgbCodecRegistry {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(FgbCodecRegistry.class);
+
+    /**
+     * SimpleMessageConverter发送字符串时使用的content-type，早期版本的客户端均为此类型
+     */
+    private static final String LEGACY_CONTENT_TYPE = "text/plain";
+
+    private static final Map<Class<?>, FgbCodec> CODEC_CLASS_MAP = new ConcurrentHashMap<>();
+
+    private static final FgbCodec JSON_CODEC = register(new JsonFgbCodec());
+
+    static {
+        for (FgbCodec codec : ServiceLoader.load(FgbCodec.class, FgbCodecRegistry.class.getClassLoader())) {
+            register(codec);
+        }
+    }
+
+    private FgbCodecRegistry() {
+    }
+
+    /**
+     * 按实现类获取编解码器，未注册时实例化并注册
+     *
+     * @param codecClass 编解码器实现类
+     * @return
+     */
+    public static FgbCodec getCodec(Class<? extends FgbCodec> codecClass) {
+        FgbCodec codec = CODEC_CLASS_MAP.get(codecClass);
+        if (codec == null) {
+            codec = register(BeanUtils.instantiateClass(codecClass));
+        }
+        return codec;
+    }
+
+    /**
+     * 按content-type获取解码收到消息的编解码器，json和text/plain使用json编解码器，其余均使用本端配置的编解码器
+     * 配置为json的一端收到其他格式的消息时按json解码失败，不会交给其他编解码器
+     *
+     * @param contentType 消息的content-type
+     * @param codec       本端配置的编解码器
+     * @return
+     */
+    public static FgbCodec getCodec(String contentType, FgbCodec codec) {
+        if (JsonFgbCodec.CONTENT_TYPE.equals(contentType) || LEGACY_CONTENT_TYPE.equals(contentType)) {
+            return JSON_CODEC;
+        }
+        return codec;
+    }
+
+    private static FgbCodec register(FgbCodec codec) {
+        FgbCodec exist = CODEC_CLASS_MAP.putIfAbsent(codec.getClass(), codec);
+        if (exist != null) {
+            return exist;
+        }
+        if (JsonFgbCodec.CONTENT_TYPE.equals(codec.getContentType()) && codec.getClass() != JsonFgbCodec.class) {
+            LOGGER.warn("FgbCodec: " + codec.getClass().getName() + ", ContentType: " + codec.getContentType() + " 已被 " + JsonFgbCodec.class.getName() + " 使用");
+        }
+        return codec;
+    }
+}
@@ -0,0 +1,27 @@
+package com.gaad.rabbitmq.fgb.codec;
+
+import java.lang.reflect.Type;
+
+/**
+ * 解码后的调用请求
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public interface FgbRequest {
+
+    /**
+     * 获得当前command
+     *
+     * @return
+     */
+    String getCommand();
+
+    /**
+     * 按目标方法的参数类型获取调用参数
+     *
+     * @param parameterTypes 参数类型
+     * @return 与parameterTypes等长的参数数组
+     */
+    Object[] getArgs(Type[] parameterTypes);
+}
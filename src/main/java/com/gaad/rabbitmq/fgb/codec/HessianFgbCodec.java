@@ -0,0 +1,212 @@
+package com.gaad.rabbitmq.fgb.codec;
+
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.util.TypeUtils;
+import com.caucho.hessian.io.ClassFactory;
+import com.caucho.hessian.io.Hessian2Input;
+import com.caucho.hessian.io.Hessian2Output;
+import com.caucho.hessian.io.SerializerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * hessian2二进制编解码
+ * 请求依次写入 command、参数个数、各参数；回复只写入调用结果。
+ * hessian自带类型信息，接收端缺少对应的类时会还原为Map，再按目标类型做转换。
+ * 只反序列化JDK类型和经 {@link #allowType(Type)}、{@link #allow(String)} 允许的类，其余类同样还原为Map
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public class HessianFgbCodec implements FgbCodec {
+
+    public static final String CONTENT_TYPE = "application/x-fgb-hessian2";
+
+    private static final SerializerFactory SERIALIZER_FACTORY = new SerializerFactory();
+
+    /**
+     * 已加入白名单的类名
+     */
+    private static final Set<String> ALLOWED_CLASSES = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    static {
+        // 与json编码保持一致，不要求参数实现Serializable
+        SERIALIZER_FACTORY.setAllowNonSerializable(true);
+        // 白名单模式，hessian内置允许java.*(Runtime、Process等除外)，javax下的类一律不允许
+        ClassFactory classFactory = SERIALIZER_FACTORY.getClassFactory();
+        classFactory.deny("javax.*");
+        classFactory.setWhitelist(true);
+    }
+
+    /**
+     * 允许反序列化的类，支持*通配，如 com.demo.dto.*
+     * 用于接口或父类参数实际传入的实现类等无法从方法签名得到的类型，需在容器启动前调用
+     *
+     * @param pattern 类名
+     */
+    public static void allow(String pattern) {
+        SERIALIZER_FACTORY.getClassFactory().allow(pattern.replace("$", "\\$"));
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] encodeRequest(String command, Object[] args) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        Hessian2Output output = output(bos);
+        output.writeString(command);
+        int length = args == null ? 0 : args.length;
+        output.writeInt(length);
+        for (int i = 0; i < length; i++) {
+            output.writeObject(args[i]);
+        }
+        output.flush();
+        return bos.toByteArray();
+    }
+
+    @Override
+    public FgbRequest decodeRequest(byte[] body) throws IOException {
+        Hessian2Input input = input(body);
+        String command = input.readString();
+        Object[] args = new Object[input.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = input.readObject();
+        }
+        return new HessianFgbRequest(command, args);
+    }
+
+    @Override
+    public byte[] encodeResult(Object result) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        Hessian2Output output = output(bos);
+        output.writeObject(result);
+        output.flush();
+        return bos.toByteArray();
+    }
+
+    @Override
+    public Object decodeResult(byte[] body, Type resultType) throws IOException {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        return cast(input(body).readObject(), resultType);
+    }
+
+    /**
+     * 允许反序列化该类型及其泛型参数、数组元素和字段中出现的类
+     *
+     * @param type 参数或结果类型
+     */
+    @Override
+    public void allowType(Type type) {
+        if (type instanceof Class) {
+            allowClass((Class<?>) type);
+        } else if (type instanceof ParameterizedType) {
+            allowType(((ParameterizedType) type).getRawType());
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                allowType(argument);
+            }
+        } else if (type instanceof GenericArrayType) {
+            allowType(((GenericArrayType) type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                allowType(bound);
+            }
+        } else if (type instanceof TypeVariable) {
+            for (Type bound : ((TypeVariable<?>) type).getBounds()) {
+                allowType(bound);
+            }
+        }
+    }
+
+    private void allowClass(Class<?> clazz) {
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        String name = clazz.getName();
+        // JDK类型由hessian内置规则处理
+        if (clazz.isPrimitive() || name.startsWith("java.") || name.startsWith("javax.") || !ALLOWED_CLASSES.add(name)) {
+            return;
+        }
+        allow(name);
+        for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                    allowType(field.getGenericType());
+                }
+            }
+        }
+    }
+
+    private static Hessian2Output output(ByteArrayOutputStream bos) {
+        Hessian2Output output = new Hessian2Output(bos);
+        output.setSerializerFactory(SERIALIZER_FACTORY);
+        return output;
+    }
+
+    private static Hessian2Input input(byte[] body) {
+        Hessian2Input input = new Hessian2Input(new ByteArrayInputStream(body));
+        input.setSerializerFactory(SERIALIZER_FACTORY);
+        return input;
+    }
+
+    /**
+     * hessian已还原出目标类型时直接返回，否则按目标类型转换
+     */
+    static Object cast(Object value, Type type) {
+        if (value == null || (type instanceof Class && ((Class<?>) type).isInstance(value))) {
+            return value;
+        }
+        return TypeUtils.cast(value, type, ParserConfig.getGlobalInstance());
+    }
+
+    /**
+     * hessian调用请求
+     */
+    private static class HessianFgbRequest implements FgbRequest {
+
+        private final String command;
+
+        private final Object[] args;
+
+        HessianFgbRequest(String command, Object[] args) {
+            this.command = command;
+            this.args = args;
+        }
+
+        @Override
+        public String getCommand() {
+            return this.command;
+        }
+
+        @Override
+        public Object[] getArgs(Type[] parameterTypes) {
+            Object[] result = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length && i < this.args.length; i++) {
+                result[i] = cast(this.args[i], parameterTypes[i]);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "{command: " + this.command + ", data: " + Arrays.toString(this.args) + "}";
+        }
+    }
+}
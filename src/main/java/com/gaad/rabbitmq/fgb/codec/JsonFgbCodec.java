@@ -0,0 +1,331 @@
+package com.gaad.rabbitmq.fgb.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.DefaultJSONParser;
+import com.alibaba.fastjson.parser.JSONLexer;
+import com.alibaba.fastjson.parser.JSONToken;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.serializer.JSONSerializer;
+import com.alibaba.fastjson.serializer.SerializeWriter;
+import com.alibaba.fastjson.util.IOUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * fastjson编解码，消息格式与早期版本保持一致：
+ * 请求 {"command":"xxx","data":{"0":arg0,"1":arg1}}，回复 {"_data":result}
+ * 编码直接写入SerializeWriter的线程缓冲区，不构建JSONObject；
+ * 解码在byte[]上流式解析，参数和结果直接解析为目标类型，不经过中间字符串和JSONObject
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public class JsonFgbCodec implements FgbCodec {
+
+    public static final String CONTENT_TYPE = "application/json";
+
+    private static final String COMMAND = "command";
+
+    private static final String DATA = "data";
+
+    private static final String RESULT = "_data";
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] encodeRequest(String command, Object[] args) {
+        SerializeWriter out = new SerializeWriter();
+        try {
+            // command写在data之前，服务端读到command即可确定参数类型
+            out.write('{');
+            out.writeFieldName(COMMAND);
+            out.writeString(command);
+            out.write(',');
+            out.writeFieldName(DATA);
+            out.write('{');
+            boolean first = true;
+            if (args != null) {
+                for (int i = 0; i < args.length; i++) {
+                    // 与JSONObject一致，不输出null参数
+                    if (args[i] == null) {
+                        continue;
+                    }
+                    if (!first) {
+                        out.write(',');
+                    }
+                    first = false;
+                    out.writeFieldName(String.valueOf(i));
+                    // 每个参数单独序列化，引用检测的根为该参数，与服务端逐个参数解析时的$ref一致
+                    new JSONSerializer(out).write(args[i]);
+                }
+            }
+            out.write('}');
+            out.write('}');
+            return out.toBytes(IOUtils.UTF8);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    public FgbRequest decodeRequest(byte[] body) throws IOException {
+        return new JsonFgbRequest(body, parser(body));
+    }
+
+    @Override
+    public byte[] encodeResult(Object result) {
+        SerializeWriter out = new SerializeWriter();
+        try {
+            out.write('{');
+            if (result != null) {
+                out.writeFieldName(RESULT);
+                new JSONSerializer(out).write(result);
+            }
+            out.write('}');
+            return out.toBytes(IOUtils.UTF8);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    public Object decodeResult(byte[] body, Type resultType) throws IOException {
+        DefaultJSONParser parser = parser(body);
+        if (!beginObject(parser)) {
+            return null;
+        }
+        Object result = null;
+        String key;
+        while ((key = nextField(parser)) != null) {
+            if (RESULT.equals(key)) {
+                result = parser.parseObject(resultType);
+            } else {
+                parser.parse();
+            }
+            if (!hasNextField(parser)) {
+                break;
+            }
+        }
+        parser.handleResovleTask(result);
+        return result;
+    }
+
+    /**
+     * 将UTF-8消息体解码到字符数组并创建解析器
+     *
+     * @param body 消息体
+     * @return
+     * @throws IOException
+     */
+    private static DefaultJSONParser parser(byte[] body) throws IOException {
+        CharBuffer chars;
+        try {
+            chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(body));
+        } catch (CharacterCodingException e) {
+            throw new IOException("消息体不是有效的UTF-8编码", e);
+        }
+        return new DefaultJSONParser(chars.array(), chars.limit(), ParserConfig.getGlobalInstance(), JSON.DEFAULT_PARSER_FEATURE);
+    }
+
+    /**
+     * 当前值是否为对象，为null或空消息时跳过并返回false
+     *
+     * @param parser 解析器
+     * @return
+     */
+    private static boolean beginObject(DefaultJSONParser parser) {
+        JSONLexer lexer = parser.lexer;
+        if (lexer.token() == JSONToken.NULL || lexer.token() == JSONToken.EOF) {
+            lexer.nextToken();
+            return false;
+        }
+        if (lexer.token() != JSONToken.LBRACE) {
+            throw new JSONException("syntax error, expect {, " + lexer.info());
+        }
+        return true;
+    }
+
+    /**
+     * 读取下一个字段名并定位到字段值，对象结束时返回null
+     *
+     * @param parser 解析器，位于 '{' 或 ',' 之后
+     * @return
+     */
+    private static String nextField(DefaultJSONParser parser) {
+        JSONLexer lexer = parser.lexer;
+        lexer.skipWhitespace();
+        char ch = lexer.getCurrent();
+        if (ch == '}') {
+            lexer.next();
+            lexer.nextToken();
+            return null;
+        }
+        if (ch != '"') {
+            throw new JSONException("syntax error, expect \", " + lexer.info());
+        }
+        // 字段名取自符号表，不重复创建字符串
+        String key = lexer.scanSymbol(parser.getSymbolTable(), '"');
+        lexer.skipWhitespace();
+        if (lexer.getCurrent() != ':') {
+            throw new JSONException("syntax error, expect :, " + lexer.info());
+        }
+        lexer.next();
+        lexer.nextToken();
+        return key;
+    }
+
+    /**
+     * 读取字段值之后，是否还有下一个字段
+     *
+     * @param parser 解析器
+     * @return
+     */
+    private static boolean hasNextField(DefaultJSONParser parser) {
+        JSONLexer lexer = parser.lexer;
+        if (lexer.token() == JSONToken.COMMA) {
+            return true;
+        }
+        if (lexer.token() == JSONToken.RBRACE) {
+            lexer.nextToken();
+            return false;
+        }
+        throw new JSONException("syntax error, expect , or }, " + lexer.info());
+    }
+
+    /**
+     * json调用请求，解码时只读取到command，参数在确定类型后继续解析
+     * 早期版本客户端的data可能在command之前，此时data先解析为JSONObject
+     */
+    private static class JsonFgbRequest implements FgbRequest {
+
+        private final byte[] body;
+
+        private String command;
+
+        /**
+         * 读取command后尚未解析的剩余字段，无剩余字段时为null
+         */
+        private DefaultJSONParser parser;
+
+        /**
+         * 出现在command之前的data
+         */
+        private JSONObject data;
+
+        private Object[] args;
+
+        JsonFgbRequest(byte[] body, DefaultJSONParser parser) {
+            this.body = body;
+            if (!beginObject(parser)) {
+                return;
+            }
+            String key;
+            while ((key = nextField(parser)) != null) {
+                if (COMMAND.equals(key)) {
+                    this.command = parser.parseObject(String.class);
+                    if (hasNextField(parser)) {
+                        this.parser = parser;
+                    }
+                    return;
+                }
+                if (DATA.equals(key)) {
+                    this.data = parser.parseObject();
+                } else {
+                    parser.parse();
+                }
+                if (!hasNextField(parser)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public String getCommand() {
+            return this.command;
+        }
+
+        @Override
+        public Object[] getArgs(Type[] parameterTypes) {
+            if (this.args != null) {
+                return this.args;
+            }
+            Object[] args = new Object[parameterTypes.length];
+            if (this.data != null) {
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    args[i] = this.data.getObject(String.valueOf(i), parameterTypes[i]);
+                }
+            }
+            if (this.parser != null) {
+                DefaultJSONParser parser = this.parser;
+                this.parser = null;
+                String key;
+                while ((key = nextField(parser)) != null) {
+                    if (DATA.equals(key) && beginObject(parser)) {
+                        readArgs(parser, parameterTypes, args);
+                    } else if (!DATA.equals(key)) {
+                        parser.parse();
+                    }
+                    if (!hasNextField(parser)) {
+                        break;
+                    }
+                }
+                parser.handleResovleTask(args);
+            }
+            this.args = args;
+            return args;
+        }
+
+        /**
+         * 按参数下标将data中的值直接解析为参数类型
+         *
+         * @param parser         解析器，位于data的 '{' 之后
+         * @param parameterTypes 参数类型
+         * @param args           参数
+         */
+        private static void readArgs(DefaultJSONParser parser, Type[] parameterTypes, Object[] args) {
+            String key;
+            while ((key = nextField(parser)) != null) {
+                int index = index(key);
+                if (index >= 0 && index < parameterTypes.length) {
+                    args[index] = parser.parseObject(parameterTypes[index]);
+                } else {
+                    parser.parse();
+                }
+                if (!hasNextField(parser)) {
+                    return;
+                }
+            }
+        }
+
+        private static int index(String key) {
+            int index = 0;
+            for (int i = 0; i < key.length(); i++) {
+                char ch = key.charAt(i);
+                if (ch < '0' || ch > '9') {
+                    return -1;
+                }
+                index = index * 10 + (ch - '0');
+            }
+            return key.isEmpty() ? -1 : index;
+        }
+
+        @Override
+        public String toString() {
+            return new String(this.body, StandardCharsets.UTF_8);
+        }
+    }
+}
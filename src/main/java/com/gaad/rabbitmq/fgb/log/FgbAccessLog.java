@@ -0,0 +1,160 @@
+package com.gaad.rabbitmq.fgb.log;
+
+import com.gaad.rabbitmq.fgb.codec.JsonFgbCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.core.env.Environment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * fgb访问日志，输出到独立的 com.gaad.rabbitmq.fgb.access logger，每次调用一行
+ * 耗时超过 spring.rabbitmq.slow-call-time 的调用总是以WARN输出；其余调用以INFO按采样率输出，slow-only时不输出
+ * 是否输出在构建任何字符串之前判断，参数在真正输出时才格式化，消息体只取前max-payload-length个字符
+ *
+ * <pre>
+ * spring.rabbitmq.fgb.access-log.enabled=true
+ * spring.rabbitmq.fgb.access-log.sample-rate=1.0
+ * spring.rabbitmq.fgb.access-log.slow-only=false
+ * spring.rabbitmq.fgb.access-log.max-payload-length=256
+ * </pre>
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public final class FgbAccessLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("com.gaad.rabbitmq.fgb.access");
+
+    private final boolean enabled;
+
+    private final double sampleRate;
+
+    private final boolean slowOnly;
+
+    /**
+     * 消息体最多输出的字符数，0时不输出消息体
+     */
+    private final int maxPayloadLength;
+
+    /**
+     * 慢调用耗时(毫秒)
+     */
+    private final long slowCallTime;
+
+    private FgbAccessLog(boolean enabled, double sampleRate, boolean slowOnly, int maxPayloadLength, long slowCallTime) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowOnly = slowOnly;
+        this.maxPayloadLength = maxPayloadLength;
+        this.slowCallTime = slowCallTime;
+    }
+
+    public static FgbAccessLog of(Environment environment) {
+        return new FgbAccessLog(environment.getProperty("spring.rabbitmq.fgb.access-log.enabled", Boolean.class, true),
+                environment.getProperty("spring.rabbitmq.fgb.access-log.sample-rate", Double.class, 1.0),
+                environment.getProperty("spring.rabbitmq.fgb.access-log.slow-only", Boolean.class, false),
+                environment.getProperty("spring.rabbitmq.fgb.access-log.max-payload-length", Integer.class, 256),
+                environment.getProperty("spring.rabbitmq.slow-call-time", Long.class, 1000L));
+    }
+
+    /**
+     * 记录一次调用
+     *
+     * @param source       调用方，如 SYNC-FgbServer-xxx
+     * @param command      command
+     * @param elapsedNanos 耗时(纳秒)
+     * @param outcome      调用结果
+     * @param payload      请求，Message、FgbRequest或批量条数，只在输出时格式化
+     */
+    public void log(String source, String command, long elapsedNanos, String outcome, Object payload) {
+        log(source, command, elapsedNanos, outcome, payload, null);
+    }
+
+    /**
+     * 记录一次调用，慢调用同时输出各阶段的耗时
+     *
+     * @param source       调用方，如 SYNC-FgbServer-xxx
+     * @param command      command
+     * @param elapsedNanos 耗时(纳秒)
+     * @param outcome      调用结果
+     * @param payload      请求，Message、FgbRequest或批量条数，只在输出时格式化
+     * @param breakdown    各阶段耗时，可为null
+     */
+    public void log(String source, String command, long elapsedNanos, String outcome, Object payload, FgbLatencyBreakdown breakdown) {
+        if (!this.enabled) {
+            return;
+        }
+        double millis = elapsedNanos / 1e6;
+        if (millis > this.slowCallTime) {
+            if (LOGGER.isWarnEnabled()) {
+                LOGGER.warn("Duration: {}ms, {}, Method: {}, {}, Slower Called, {}, Received: {}", millis, source, command, outcome,
+                        breakdown == null ? "Phases: -" : breakdown, payload(payload));
+            }
+            return;
+        }
+        if (this.slowOnly || !LOGGER.isInfoEnabled()
+                || (this.sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= this.sampleRate)) {
+            return;
+        }
+        LOGGER.info("Duration: {}ms, {}, Method: {}, {}, Received: {}", millis, source, command, outcome, payload(payload));
+    }
+
+    /**
+     * 截断后的消息体，用于错误日志等直接拼接的场景
+     *
+     * @param payload 请求，Message、FgbRequest或其他对象
+     * @return
+     */
+    public Object payload(Object payload) {
+        return payload == null || this.maxPayloadLength <= 0 ? "-" : new Payload(payload, this.maxPayloadLength);
+    }
+
+    /**
+     * 输出时才格式化的消息体
+     */
+    private static final class Payload {
+
+        private final Object payload;
+
+        private final int maxLength;
+
+        Payload(Object payload, int maxLength) {
+            this.payload = payload;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public String toString() {
+            if (!(this.payload instanceof Message)) {
+                return truncate(String.valueOf(this.payload));
+            }
+            Message message = (Message) this.payload;
+            MessageProperties messageProperties = message.getMessageProperties();
+            byte[] body = message.getBody();
+            String contentEncoding = messageProperties.getContentEncoding();
+            boolean plain = contentEncoding == null || contentEncoding.toUpperCase().startsWith(StandardCharsets.UTF_8.name());
+            String contentType = messageProperties.getContentType();
+            if (!plain || !(JsonFgbCodec.CONTENT_TYPE.equals(contentType) || MessageProperties.CONTENT_TYPE_TEXT_PLAIN.equals(contentType))) {
+                // 压缩或二进制消息体只输出类型和长度
+                return "<" + contentType + (plain ? "" : ", " + contentEncoding) + ", " + body.length + " bytes>";
+            }
+            // UTF-8下每个字符至少一个字节，只解码需要的部分
+            return truncate(new String(body, 0, Math.min(body.length, this.maxLength), StandardCharsets.UTF_8), body.length);
+        }
+
+        private String truncate(String value) {
+            return truncate(value, value.length());
+        }
+
+        private String truncate(String value, int length) {
+            if (value.length() > this.maxLength) {
+                return value.substring(0, this.maxLength) + "...(" + length + ")";
+            }
+            return length > value.length() ? value + "...(" + length + ")" : value;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.gaad.rabbitmq.fgb.log;
+
+import com.gaad.rabbitmq.fgb.model.constants.FgbHeaderConstant;
+import org.springframework.amqp.core.MessageProperties;
+
+/**
+ * 一次调用各阶段的耗时，未知的阶段为-1，用于调用指标和慢调用日志
+ * 服务端：queue(客户端发出到服务端收到)、dispatch(收到到开始处理)、decode、execute、encode
+ * 客户端：按答复带回的时间计算queue、dispatch、server(开始处理到发送答复)、reply(答复发出到客户端收到)
+ * queue和reply跨越两台主机的时钟，负值按0计
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public final class FgbLatencyBreakdown {
+
+    /**
+     * 毫秒
+     */
+    private long queueWait = -1;
+
+    private long dispatchWait = -1;
+
+    private long server = -1;
+
+    private long replyTransit = -1;
+
+    /**
+     * 纳秒
+     */
+    private long decode = -1;
+
+    private long execute = -1;
+
+    private long encode = -1;
+
+    private FgbLatencyBreakdown() {
+    }
+
+    /**
+     * 服务端按请求消息头计算排队和等待处理的时间
+     *
+     * @param request 请求消息属性
+     * @return
+     */
+    public static FgbLatencyBreakdown received(MessageProperties request) {
+        FgbLatencyBreakdown breakdown = new FgbLatencyBreakdown();
+        long sentAt = header(request, FgbHeaderConstant.SENT_AT);
+        long receivedAt = header(request, FgbHeaderConstant.RECEIVED_AT);
+        long dispatchedAt = header(request, FgbHeaderConstant.DISPATCHED_AT);
+        breakdown.queueWait = between(sentAt, receivedAt);
+        breakdown.dispatchWait = between(receivedAt, dispatchedAt);
+        return breakdown;
+    }
+
+    /**
+     * 客户端按答复消息头计算各阶段的时间，旧版本服务端的答复没有这些消息头
+     *
+     * @param reply 答复消息属性
+     * @param now   收到答复的时间
+     * @return
+     */
+    public static FgbLatencyBreakdown replied(MessageProperties reply, long now) {
+        FgbLatencyBreakdown breakdown = new FgbLatencyBreakdown();
+        long receivedAt = header(reply, FgbHeaderConstant.RECEIVED_AT);
+        long dispatchedAt = header(reply, FgbHeaderConstant.DISPATCHED_AT);
+        long completedAt = header(reply, FgbHeaderConstant.COMPLETED_AT);
+        breakdown.queueWait = between(header(reply, FgbHeaderConstant.SENT_AT), receivedAt);
+        breakdown.dispatchWait = between(receivedAt, dispatchedAt);
+        breakdown.server = between(dispatchedAt, completedAt);
+        breakdown.replyTransit = between(completedAt, now);
+        return breakdown;
+    }
+
+    /**
+     * @param messageProperties 消息属性
+     * @param name              消息头
+     * @return epoch毫秒，没有该消息头时返回-1
+     */
+    public static long header(MessageProperties messageProperties, String name) {
+        Object value = messageProperties.getHeaders().get(name);
+        return value instanceof Number ? ((Number) value).longValue() : -1;
+    }
+
+    private static long between(long from, long to) {
+        return from < 0 || to < 0 ? -1 : Math.max(to - from, 0);
+    }
+
+    public long getQueueWait() {
+        return this.queueWait;
+    }
+
+    public long getDispatchWait() {
+        return this.dispatchWait;
+    }
+
+    public long getReplyTransit() {
+        return this.replyTransit;
+    }
+
+    public void setDecode(long decode) {
+        this.decode = decode;
+    }
+
+    public long getExecute() {
+        return this.execute;
+    }
+
+    public void setExecute(long execute) {
+        this.execute = execute;
+    }
+
+    public void setEncode(long encode) {
+        this.encode = encode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(96);
+        append(builder, "Queue", this.queueWait);
+        append(builder, "Dispatch", this.dispatchWait);
+        append(builder, "Decode", this.decode < 0 ? -1 : this.decode / 1e6);
+        append(builder, "Execute", this.execute < 0 ? -1 : this.execute / 1e6);
+        append(builder, "Encode", this.encode < 0 ? -1 : this.encode / 1e6);
+        append(builder, "Server", this.server);
+        append(builder, "Reply", this.replyTransit);
+        return builder.length() == 0 ? "Phases: -" : builder.toString();
+    }
+
+    private static void append(StringBuilder builder, String phase, long millis) {
+        if (millis >= 0) {
+            builder.append(builder.length() == 0 ? "" : ", ").append(phase).append(": ").append(millis).append("ms");
+        }
+    }
+
+    private static void append(StringBuilder builder, String phase, double millis) {
+        if (millis >= 0) {
+            builder.append(builder.length() == 0 ? "" : ", ").append(phase).append(": ").append(millis).append("ms");
+        }
+    }
+}
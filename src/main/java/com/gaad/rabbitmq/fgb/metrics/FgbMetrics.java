@@ -0,0 +1,123 @@
+package com.gaad.rabbitmq.fgb.metrics;
+
+/**
+ * 单个command的调用指标，客户端和服务端各自按 fgbName + command 创建，启动时设置到调用点和调用描述
+ * 默认实现不记录任何指标，引入micrometer且存在MeterRegistry时由 {@link FgbMetricsRegistry} 创建micrometer实现
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public interface FgbMetrics {
+
+    FgbMetrics NOOP = new FgbMetrics() {
+    };
+
+    /**
+     * 调用结果
+     */
+    String SUCCESS = "success";
+
+    String ERROR = "error";
+
+    String TIMEOUT = "timeout";
+
+    /**
+     * ASYNC调用发送完成
+     */
+    String SENT = "sent";
+
+    /**
+     * 服务端记忆化命中
+     */
+    String MEMOIZED = "memoized";
+
+    /**
+     * 重发原因
+     */
+    String RESEND = "resend";
+
+    String HEDGE = "hedge";
+
+    /**
+     * 开始调用，在途调用数加一
+     */
+    default void callStarted() {
+    }
+
+    /**
+     * 调用完成，在途调用数减一并记录耗时
+     *
+     * @param outcome 调用结果
+     * @param nanos   耗时(纳秒)
+     */
+    default void callCompleted(String outcome, long nanos) {
+    }
+
+    /**
+     * 熔断或并发数超限拒绝调用
+     */
+    default void callRejected() {
+    }
+
+    /**
+     * 服务端丢弃超过截止时间的请求
+     */
+    default void callExpired() {
+    }
+
+    /**
+     * 客户端重发请求
+     *
+     * @param reason 重发原因
+     */
+    default void retried(String reason) {
+    }
+
+    /**
+     * @param bytes 请求消息体字节数(压缩后)
+     */
+    default void requestSize(int bytes) {
+    }
+
+    /**
+     * @param bytes 答复消息体字节数(压缩后)
+     */
+    default void replySize(int bytes) {
+    }
+
+    /**
+     * @param nanos 编码耗时(纳秒)，客户端为请求，服务端为结果
+     */
+    default void encoded(long nanos) {
+    }
+
+    /**
+     * @param nanos 解码耗时(纳秒)，客户端为结果，服务端为请求和参数
+     */
+    default void decoded(long nanos) {
+    }
+
+    /**
+     * @param millis 请求从客户端发出到服务端收到的时间(毫秒)，包含在队列中等待的时间
+     */
+    default void queueWait(long millis) {
+    }
+
+    /**
+     * @param millis 服务端收到请求到开始处理的时间(毫秒)，即等待方法执行器线程的时间
+     */
+    default void dispatchWait(long millis) {
+    }
+
+    /**
+     * @param nanos 服务端执行目标方法的耗时(纳秒)，异步结果到完成为止
+     */
+    default void executed(long nanos) {
+    }
+
+    /**
+     * @param millis 服务端发出答复到客户端收到的时间(毫秒)
+     */
+    default void replyTransit(long millis) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.gaad.rabbitmq.fgb.metrics;
+
+import com.gaad.rabbitmq.fgb.model.enums.FgbType;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 创建每个command的调用指标
+ * micrometer-core为可选依赖，未引入、上下文中没有唯一的MeterRegistry或 spring.rabbitmq.fgb.metrics.enabled=false 时不记录指标
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public final class FgbMetricsRegistry {
+
+    private static final boolean MICROMETER_PRESENT = ClassUtils.isPresent("io.micrometer.core.instrument.MeterRegistry", FgbMetricsRegistry.class.getClassLoader());
+
+    private static final FgbMetricsRegistry NOOP = new FgbMetricsRegistry(null);
+
+    /**
+     * MeterRegistry，不记录指标时为null；声明为Object避免未引入micrometer时加载失败
+     */
+    private final Object meterRegistry;
+
+    private FgbMetricsRegistry(Object meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param beanFactory bean工厂
+     * @param environment 配置
+     * @return
+     */
+    public static FgbMetricsRegistry of(BeanFactory beanFactory, Environment environment) {
+        if (!MICROMETER_PRESENT || !environment.getProperty("spring.rabbitmq.fgb.metrics.enabled", Boolean.class, true)) {
+            return NOOP;
+        }
+        Object meterRegistry = MicrometerLookup.meterRegistry(beanFactory);
+        return meterRegistry == null ? NOOP : new FgbMetricsRegistry(meterRegistry);
+    }
+
+    /**
+     * 客户端调用指标，指标名以 fgb.client 开头
+     *
+     * @param fgbName fgb名称
+     * @param fgbType 调用类型
+     * @param command command
+     * @return
+     */
+    public FgbMetrics client(String fgbName, FgbType fgbType, String command) {
+        if (this.meterRegistry == null) {
+            return FgbMetrics.NOOP;
+        }
+        return new MicrometerFgbMetrics((MeterRegistry) this.meterRegistry, true, fgbName, fgbType, command);
+    }
+
+    /**
+     * 服务端调用指标，指标名以 fgb.server 开头
+     *
+     * @param fgbName fgb名称
+     * @param fgbType 调用类型
+     * @param command command
+     * @return
+     */
+    public FgbMetrics server(String fgbName, FgbType fgbType, String command) {
+        if (this.meterRegistry == null) {
+            return FgbMetrics.NOOP;
+        }
+        return new MicrometerFgbMetrics((MeterRegistry) this.meterRegistry, false, fgbName, fgbType, command);
+    }
+
+    /**
+     * 只有在micrometer存在时才会加载
+     */
+    private static class MicrometerLookup {
+
+        static Object meterRegistry(BeanFactory beanFactory) {
+            return beanFactory.getBeanProvider(MeterRegistry.class).getIfUnique();
+        }
+    }
+}
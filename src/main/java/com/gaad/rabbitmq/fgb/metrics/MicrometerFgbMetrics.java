@@ -0,0 +1,179 @@
+package com.gaad.rabbitmq.fgb.metrics;
+
+import com.gaad.rabbitmq.fgb.model.enums.FgbType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * micrometer调用指标，标签为 fgb、type、command，调用耗时另按outcome区分并发布百分位直方图
+ * 指标在启动时注册，调用时不再查找；客户端和服务端的指标名分别以 fgb.client、fgb.server 开头
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+final class MicrometerFgbMetrics implements FgbMetrics {
+
+    private final MeterRegistry registry;
+
+    private final String prefix;
+
+    private final Tags tags;
+
+    /**
+     * outcome -> 调用耗时
+     */
+    private final ConcurrentMap<String, Timer> calls = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 客户端指标
+     */
+    private final Counter rejected;
+
+    private final Counter resent;
+
+    private final Counter hedged;
+
+    private final Timer replyTransit;
+
+    /**
+     * 服务端指标
+     */
+    private final Counter expired;
+
+    private final Timer queueWait;
+
+    private final Timer dispatchWait;
+
+    private final Timer execute;
+
+    /**
+     * 客户端和服务端共用
+     */
+    private final DistributionSummary requestSize;
+
+    private final DistributionSummary replySize;
+
+    private final Timer encode;
+
+    private final Timer decode;
+
+    /**
+     * @param registry MeterRegistry
+     * @param client   客户端指标时为true，只注册各自会记录的指标
+     * @param fgbName  fgb名称
+     * @param fgbType  调用类型
+     * @param command  command
+     */
+    MicrometerFgbMetrics(MeterRegistry registry, boolean client, String fgbName, FgbType fgbType, String command) {
+        String prefix = client ? "fgb.client" : "fgb.server";
+        this.registry = registry;
+        this.prefix = prefix;
+        this.tags = Tags.of("fgb", fgbName, "type", fgbType.getName(), "command", command);
+        Gauge.builder(prefix + ".in.flight", this.inFlight, AtomicInteger::get).tags(this.tags).description("在途调用数").register(registry);
+        if (client) {
+            this.rejected = Counter.builder(prefix + ".rejected").tags(this.tags).description("熔断或并发数超限拒绝的调用").register(registry);
+            this.resent = Counter.builder(prefix + ".retries").tags(this.tags).tag("reason", RESEND).description("重发的请求").register(registry);
+            this.hedged = Counter.builder(prefix + ".retries").tags(this.tags).tag("reason", HEDGE).description("重发的请求").register(registry);
+            this.replyTransit = Timer.builder(prefix + ".reply.transit").tags(this.tags).description("服务端发出答复到客户端收到的时间").register(registry);
+            this.expired = null;
+            this.queueWait = null;
+            this.dispatchWait = null;
+            this.execute = null;
+        } else {
+            this.expired = Counter.builder(prefix + ".expired").tags(this.tags).description("超过截止时间丢弃的请求").register(registry);
+            this.queueWait = Timer.builder(prefix + ".queue.wait").tags(this.tags).description("请求发出到服务端收到的时间").register(registry);
+            this.dispatchWait = Timer.builder(prefix + ".dispatch.wait").tags(this.tags).description("服务端收到请求到开始处理的时间").register(registry);
+            this.execute = Timer.builder(prefix + ".execute").tags(this.tags).description("目标方法的执行时间").register(registry);
+            this.rejected = null;
+            this.resent = null;
+            this.hedged = null;
+            this.replyTransit = null;
+        }
+        this.requestSize = DistributionSummary.builder(prefix + ".request.size").tags(this.tags).baseUnit("bytes").register(registry);
+        this.replySize = DistributionSummary.builder(prefix + ".reply.size").tags(this.tags).baseUnit("bytes").register(registry);
+        this.encode = Timer.builder(prefix + ".encode").tags(this.tags).register(registry);
+        this.decode = Timer.builder(prefix + ".decode").tags(this.tags).register(registry);
+    }
+
+    @Override
+    public void callStarted() {
+        this.inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void callCompleted(String outcome, long nanos) {
+        this.inFlight.decrementAndGet();
+        Timer timer = this.calls.get(outcome);
+        if (timer == null) {
+            timer = this.calls.computeIfAbsent(outcome, key -> Timer.builder(this.prefix + ".calls").tags(this.tags).tag("outcome", key)
+                    .publishPercentileHistogram().register(this.registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void callRejected() {
+        this.rejected.increment();
+    }
+
+    @Override
+    public void callExpired() {
+        this.expired.increment();
+    }
+
+    @Override
+    public void retried(String reason) {
+        (HEDGE.equals(reason) ? this.hedged : this.resent).increment();
+    }
+
+    @Override
+    public void requestSize(int bytes) {
+        this.requestSize.record(bytes);
+    }
+
+    @Override
+    public void replySize(int bytes) {
+        this.replySize.record(bytes);
+    }
+
+    @Override
+    public void encoded(long nanos) {
+        this.encode.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void decoded(long nanos) {
+        this.decode.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void queueWait(long millis) {
+        this.queueWait.record(Math.max(millis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void dispatchWait(long millis) {
+        this.dispatchWait.record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void executed(long nanos) {
+        this.execute.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void replyTransit(long millis) {
+        this.replyTransit.record(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,43 @@
+package com.gaad.rabbitmq.fgb.model.constants;
+
+/**
+ * fgb使用的AMQP消息头
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public final class FgbHeaderConstant {
+
+    /**
+     * 客户端可解压的content-encoding，逗号分隔，服务端只用其中的压缩方式压缩答复
+     */
+    public static final String ACCEPT_ENCODING = "fgb-accept-encoding";
+
+    /**
+     * 调用的command，服务端无需解码消息体即可确定调用的方法
+     */
+    public static final String COMMAND = "fgb-command";
+
+    /**
+     * SYNC调用的截止时间(epoch毫秒)，客户端在此之后不再等待答复，服务端收到已过期的请求时直接丢弃
+     */
+    public static final String DEADLINE = "fgb-deadline";
+
+    /**
+     * 客户端发送请求的时间(epoch毫秒)，服务端据此统计请求在队列中的等待时间
+     */
+    public static final String SENT_AT = "fgb-sent-at";
+
+    /**
+     * 服务端收到请求、开始处理请求、发送答复的时间(epoch毫秒)
+     * 前两者由服务端记录在请求上，答复时连同 fgb-sent-at 一起带回客户端，用于拆分调用各阶段的耗时
+     */
+    public static final String RECEIVED_AT = "fgb-received-at";
+
+    public static final String DISPATCHED_AT = "fgb-dispatched-at";
+
+    public static final String COMPLETED_AT = "fgb-completed-at";
+
+    private FgbHeaderConstant() {
+    }
+}
@@ -0,0 +1,59 @@
+package com.gaad.rabbitmq.fgb.model.enums;
+
+/**
+ * 消息体压缩方式，压缩后写入AMQP的content-encoding
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public enum FgbCompressionType {
+
+    /**
+     * 不压缩
+     */
+    NONE(0, "none"),
+    /**
+     * gzip，压缩率高，JDK自带
+     */
+    GZIP(1, "gzip"),
+    /**
+     * lz4 frame格式，压缩和解压速度快，需引入 org.lz4:lz4-java
+     */
+    LZ4(2, "lz4");
+
+    private int type;
+    private String name;
+
+    FgbCompressionType(int type, String name) {
+        this.type = type;
+        this.name = name;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 按content-encoding获取压缩方式，兼容 "gzip:UTF-8" 形式，无法识别时为NONE
+     *
+     * @param contentEncoding 消息的content-encoding
+     * @return
+     */
+    public static FgbCompressionType getFgbCompressionType(String contentEncoding) {
+        if (contentEncoding == null) {
+            return NONE;
+        }
+        int colon = contentEncoding.indexOf(':');
+        String name = colon < 0 ? contentEncoding : contentEncoding.substring(0, colon);
+        for (FgbCompressionType e : FgbCompressionType.values()) {
+            if (e.name.equalsIgnoreCase(name.trim())) {
+                return e;
+            }
+        }
+        return NONE;
+    }
+}
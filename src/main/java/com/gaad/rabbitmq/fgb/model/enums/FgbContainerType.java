@@ -0,0 +1,51 @@
+package com.gaad.rabbitmq.fgb.model.enums;
+
+/**
+ * 监听容器类型
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public enum FgbContainerType {
+
+    /**
+     * 使用 spring.rabbitmq.listener.type 配置，未配置时为SIMPLE
+     */
+    DEFAULT(0, "DEFAULT"),
+    /**
+     * SimpleMessageListenerContainer，消费线程从内部队列取消息执行
+     */
+    SIMPLE(1, "SIMPLE"),
+    /**
+     * DirectMessageListenerContainer，直接在amqp客户端线程中执行，少一次线程切换
+     */
+    DIRECT(2, "DIRECT");
+
+    private int type;
+    private String name;
+
+    FgbContainerType(int type, String name) {
+        this.type = type;
+        this.name = name;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static FgbContainerType getFgbContainerType(String name) {
+        if (name == null) {
+            return DEFAULT;
+        }
+        for (FgbContainerType e : FgbContainerType.values()) {
+            if (e.name.equalsIgnoreCase(name)) {
+                return e;
+            }
+        }
+        return DEFAULT;
+    }
+}
@@ -0,0 +1,159 @@
+package com.gaad.rabbitmq.fgb.server;
+
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 合并确认，每个channel上已处理完成且连续的消息用一次 basicAck(deliveryTag, multiple=true) 确认
+ * 处理完成的消息达到batchSize或距上次确认超过interval时确认；调用乱序完成时只确认到最早未完成消息之前，
+ * 应用关闭时确认所有已完成的消息，之后每条消息完成即确认；channel关闭后未确认的消息由broker重新投递
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+final class FgbAckCoalescer {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(FgbAckCoalescer.class);
+
+    /**
+     * 定时确认，所有FgbServer共用
+     */
+    private final static ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fgb-ack-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+
+    private final int batchSize;
+
+    private final Map<Channel, ChannelAcks> channels = new ConcurrentHashMap<>();
+
+    private final ScheduledFuture<?> flushTask;
+
+    private volatile boolean closed;
+
+    FgbAckCoalescer(String name, int batchSize, long interval) {
+        this.name = name;
+        this.batchSize = batchSize;
+        this.flushTask = FLUSHER.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 接收到消息，需在消费线程中按投递顺序调用
+     *
+     * @param channel     消费通道
+     * @param deliveryTag 消息标识
+     */
+    void delivered(Channel channel, long deliveryTag) {
+        ChannelAcks channelAcks = this.channels.get(channel);
+        if (channelAcks == null) {
+            channelAcks = new ChannelAcks(channel);
+            this.channels.put(channel, channelAcks);
+            channel.addShutdownListener(cause -> this.channels.remove(channel));
+        }
+        channelAcks.delivered(deliveryTag);
+    }
+
+    /**
+     * 消息处理完成
+     *
+     * @param channel     消费通道
+     * @param deliveryTag 消息标识
+     */
+    void completed(Channel channel, long deliveryTag) {
+        ChannelAcks channelAcks = this.channels.get(channel);
+        if (channelAcks == null) {
+            // channel已关闭，消息会被重新投递
+            return;
+        }
+        if (channelAcks.completed(deliveryTag) >= this.batchSize || this.closed) {
+            channelAcks.flush();
+        }
+    }
+
+    /**
+     * 确认所有channel上已完成的消息
+     */
+    void flush() {
+        for (ChannelAcks channelAcks : this.channels.values()) {
+            channelAcks.flush();
+        }
+    }
+
+    /**
+     * 应用关闭，停止定时确认并确认已完成的消息，之后逐条确认
+     */
+    void close() {
+        this.closed = true;
+        this.flushTask.cancel(false);
+        flush();
+    }
+
+    /**
+     * 单个channel的确认状态
+     */
+    private class ChannelAcks {
+
+        private final Channel channel;
+
+        /**
+         * 已接收未完成的消息
+         */
+        private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+
+        /**
+         * 完成后尚未确认的消息数
+         */
+        private final AtomicInteger unacked = new AtomicInteger();
+
+        private volatile long maxDelivered;
+
+        private long acked;
+
+        ChannelAcks(Channel channel) {
+            this.channel = channel;
+        }
+
+        void delivered(long deliveryTag) {
+            // 先加入pending再更新maxDelivered，flush读取到的maxDelivered之前的消息要么已完成，要么在pending中
+            this.pending.add(deliveryTag);
+            this.maxDelivered = deliveryTag;
+        }
+
+        int completed(long deliveryTag) {
+            this.pending.remove(deliveryTag);
+            return this.unacked.incrementAndGet();
+        }
+
+        synchronized void flush() {
+            long upTo = this.maxDelivered;
+            Long firstPending = this.pending.isEmpty() ? null : this.pending.first();
+            if (firstPending != null) {
+                upTo = Math.min(upTo, firstPending - 1);
+            }
+            if (upTo <= this.acked) {
+                return;
+            }
+            try {
+                this.channel.basicAck(upTo, true);
+                this.acked = upTo;
+                this.unacked.set(0);
+            } catch (Exception e) {
+                LOGGER.error(FgbAckCoalescer.this.name + " Ack Exception! DeliveryTag: " + upTo, e);
+                FgbAckCoalescer.this.channels.remove(this.channel);
+            }
+        }
+    }
+}
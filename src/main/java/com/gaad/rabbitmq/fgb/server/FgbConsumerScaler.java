@@ -0,0 +1,169 @@
+package com.gaad.rabbitmq.fgb.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * 按队列积压和调用耗时调整fgbServer消费者数量
+ * 每个采样周期估算所需消费者数 = 调用占用的消费者数 / 目标利用率 + 在目标耗时内消化积压所需的消费者数，
+ * 扩容一步到位，缩容每周期减一，结果限制在 [threadNum, maxThreadNum]
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public class FgbConsumerScaler implements SmartLifecycle {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(FgbConsumerScaler.class);
+
+    /**
+     * 目标利用率，留出余量应对突发
+     */
+    private final static double TARGET_UTILIZATION = 0.75;
+
+    @Value("${spring.rabbitmq.fgb.scale-interval:5000}")
+    private long scaleInterval;
+
+    private final ConnectionFactory connectionFactory;
+
+    private final List<ScaledContainer> containers = new CopyOnWriteArrayList<>();
+
+    private RabbitAdmin rabbitAdmin;
+
+    private ScheduledExecutorService scheduler;
+
+    FgbConsumerScaler(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * 注册需要自动调整的监听
+     *
+     * @param name             监听名称
+     * @param concurrency      设置监听容器的消费者数量
+     * @param queueName        队列名称
+     * @param callStats        调用统计
+     * @param minConsumers     最小消费者数
+     * @param maxConsumers     最大消费者数
+     * @param targetLatency    消化积压的目标耗时(毫秒)
+     * @param targetQueueDepth 可接受的积压数量
+     */
+    void register(String name, IntConsumer concurrency, String queueName, FgbServerCallStats callStats,
+                  int minConsumers, int maxConsumers, long targetLatency, int targetQueueDepth) {
+        this.containers.add(new ScaledContainer(name, concurrency, queueName, callStats, minConsumers, maxConsumers, targetLatency, targetQueueDepth));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (this.scheduler != null) {
+            return;
+        }
+        this.rabbitAdmin = new RabbitAdmin(this.connectionFactory);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fgb-consumer-scaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::scale, this.scaleInterval, this.scaleInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return this.scheduler != null;
+    }
+
+    private void scale() {
+        for (ScaledContainer scaledContainer : this.containers) {
+            try {
+                scaledContainer.scale();
+            } catch (Exception e) {
+                // broker不可用时每个周期都会失败，只记录原因
+                LOGGER.warn("FgbConsumerScaler-" + scaledContainer.name + " Exception: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 自动调整的监听
+     */
+    private class ScaledContainer {
+
+        private final String name;
+        private final IntConsumer concurrency;
+        private final String queueName;
+        private final FgbServerCallStats callStats;
+        private final int minConsumers;
+        private final int maxConsumers;
+        private final long targetLatency;
+        private final int targetQueueDepth;
+
+        private int consumers;
+
+        /**
+         * 最近一次观测到的平均调用耗时(毫秒)
+         */
+        private double serviceTime;
+
+        ScaledContainer(String name, IntConsumer concurrency, String queueName, FgbServerCallStats callStats,
+                        int minConsumers, int maxConsumers, long targetLatency, int targetQueueDepth) {
+            this.name = name;
+            this.concurrency = concurrency;
+            this.queueName = queueName;
+            this.callStats = callStats;
+            this.minConsumers = minConsumers;
+            this.maxConsumers = maxConsumers;
+            this.targetLatency = targetLatency;
+            this.targetQueueDepth = targetQueueDepth;
+            this.consumers = minConsumers;
+        }
+
+        void scale() {
+            long calls = this.callStats.drainCalls();
+            long millis = this.callStats.drainMillis();
+            if (calls > 0) {
+                this.serviceTime = (double) millis / calls;
+            }
+            QueueInformation queueInformation = FgbConsumerScaler.this.rabbitAdmin.getQueueInfo(this.queueName);
+            long backlog = queueInformation == null ? 0 : Math.max(0, queueInformation.getMessageCount() - this.targetQueueDepth);
+            // 调用占用的消费者数
+            double busy = (double) millis / FgbConsumerScaler.this.scaleInterval;
+            int desired = (int) Math.ceil(busy / TARGET_UTILIZATION);
+            if (backlog > 0) {
+                if (this.serviceTime > 0) {
+                    desired += (int) Math.ceil(backlog * this.serviceTime / this.targetLatency);
+                } else {
+                    desired = Math.max(desired, this.consumers + 1);
+                }
+            }
+            desired = Math.max(this.minConsumers, Math.min(this.maxConsumers, desired));
+            if (desired < this.consumers) {
+                desired = this.consumers - 1;
+            }
+            if (desired != this.consumers) {
+                LOGGER.info("FgbConsumerScaler-" + this.name + ", Consumers: " + this.consumers + " -> " + desired
+                        + ", Backlog: " + backlog + ", ServiceTime: " + this.serviceTime + "ms");
+                this.concurrency.accept(desired);
+                this.consumers = desired;
+            }
+        }
+    }
+}
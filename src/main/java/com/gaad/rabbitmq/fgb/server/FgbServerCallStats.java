@@ -0,0 +1,50 @@
+package com.gaad.rabbitmq.fgb.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * fgbServer调用统计，按采样周期读取后清零，用于调整消费者数量
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+final class FgbServerCallStats {
+
+    /**
+     * 完成的调用次数
+     */
+    private final LongAdder calls = new LongAdder();
+
+    /**
+     * 调用耗时之和(毫秒)
+     */
+    private final LongAdder millis = new LongAdder();
+
+    /**
+     * 记录一次调用
+     *
+     * @param elapsedMillis 调用耗时
+     */
+    void record(long elapsedMillis) {
+        this.calls.increment();
+        this.millis.add(elapsedMillis);
+    }
+
+    /**
+     * 读取并清零调用次数
+     *
+     * @return
+     */
+    long drainCalls() {
+        return this.calls.sumThenReset();
+    }
+
+    /**
+     * 读取并清零调用耗时之和
+     *
+     * @return
+     */
+    long drainMillis() {
+        return this.millis.sumThenReset();
+    }
+}
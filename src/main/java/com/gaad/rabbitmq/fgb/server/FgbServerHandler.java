@@ -1,10 +1,17 @@
 package com.gaad.rabbitmq.fgb.server;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONException;
-import com.alibaba.fastjson.JSONObject;
 import com.gaad.rabbitmq.fgb.annotation.FgbServerMethod;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.codec.FgbRequest;
+import com.gaad.rabbitmq.fgb.log.FgbAccessLog;
+import com.gaad.rabbitmq.fgb.log.FgbLatencyBreakdown;
+import com.gaad.rabbitmq.fgb.metrics.FgbMetrics;
+import com.gaad.rabbitmq.fgb.model.constants.FgbHeaderConstant;
+import com.gaad.rabbitmq.fgb.model.enums.FgbCompressionType;
 import com.gaad.rabbitmq.fgb.model.enums.FgbType;
+import com.gaad.rabbitmq.fgb.util.CompressionUtil;
+import com.gaad.rabbitmq.fgb.util.FgbBatchingStrategy;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import net.sf.cglib.reflect.FastClass;
@@ -13,20 +20,32 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
-import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.amqp.rabbit.batch.BatchingStrategy;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareBatchMessageListener;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * fgbServer调用处理
@@ -34,14 +53,19 @@ import java.util.concurrent.ConcurrentHashMap;
  * @author loken
  * @date 2020/12/3
  */
-public class FgbServerHandler implements ChannelAwareMessageListener, InitializingBean {
+public class FgbServerHandler implements ChannelAwareBatchMessageListener, InitializingBean, ApplicationListener<ContextClosedEvent> {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(FgbServerHandler.class);
 
-    private final static Map<String, FastMethod> FAST_METHOD_MAP = new ConcurrentHashMap<>();
+    /**
+     * 仅用于识别和拆分客户端批量发送的消息
+     */
+    private final static BatchingStrategy BATCHING_STRATEGY = new FgbBatchingStrategy(0, 0, 0L);
 
-    @Value("${spring.rabbitmq.slow-call-time:1000}")
-    private int slowCallTime;
+    /**
+     * 答复时带回客户端的请求时间
+     */
+    private final static String[] REPLY_TIMESTAMPS = {FgbHeaderConstant.SENT_AT, FgbHeaderConstant.RECEIVED_AT, FgbHeaderConstant.DISPATCHED_AT};
 
     private final Object fgbServerBean;
 
@@ -49,10 +73,53 @@ public class FgbServerHandler implements ChannelAwareMessageListener, Initializi
 
     private final FgbType fgbType;
 
-    FgbServerHandler(Object fgbServerBean, String fgbName, FgbType fgbType) {
+    private final FgbCodec codec;
+
+    /**
+     * 调用统计
+     */
+    private final FgbServerCallStats callStats = new FgbServerCallStats();
+
+    /**
+     * 超过截止时间被丢弃的请求数
+     */
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * 方法执行器，为null时在消费线程中执行
+     */
+    private Executor executor;
+
+    /**
+     * 访问日志，accessLogSource 为日志中的调用方
+     */
+    private FgbAccessLog accessLog;
+
+    private final String accessLogSource;
+
+    /**
+     * 合并确认，为null时逐条确认
+     */
+    private FgbAckCoalescer ackCoalescer;
+
+    /**
+     * 答复压缩方式和阈值
+     */
+    private FgbCompressionType compression = FgbCompressionType.NONE;
+
+    private int compressThreshold;
+
+    /**
+     * command -> 调用描述，启动后只读
+     */
+    private Map<String, FgbServerMethodDescriptor> methodDescriptors = Collections.emptyMap();
+
+    FgbServerHandler(Object fgbServerBean, String fgbName, FgbType fgbType, FgbCodec codec) {
         this.fgbServerBean = fgbServerBean;
         this.fgbName = fgbName;
         this.fgbType = fgbType;
+        this.codec = codec;
+        this.accessLogSource = fgbType.getName() + "-FgbServer-" + fgbName;
     }
 
     @Override
@@ -62,173 +129,549 @@ public class FgbServerHandler implements ChannelAwareMessageListener, Initializi
         if (this.fgbServerBean.getClass().getName().contains("CGLIB")) {
             fgbServerClass = this.fgbServerBean.getClass().getSuperclass();
         }
+        FastClass fastClass = FastClass.create(fgbServerClass);
+        Map<String, FgbServerMethodDescriptor> descriptors = new HashMap<>();
         for (Method targetMethod : fgbServerClass.getMethods()) {
-            if (targetMethod != null && targetMethod.isAnnotationPresent(FgbServerMethod.class)) {
+            if (targetMethod != null && !targetMethod.isBridge() && targetMethod.isAnnotationPresent(FgbServerMethod.class)) {
                 String methodName = targetMethod.getAnnotation(FgbServerMethod.class).value();
                 if (StringUtils.isEmpty(methodName)) {
                     methodName = targetMethod.getName();
                 }
-                String key = this.fgbType.getName() + "_" + this.fgbName + "_" + methodName;
-                if (FAST_METHOD_MAP.containsKey(key)) {
-                    throw new RuntimeException("Class: " + fgbServerClass.getName() + ", Method: " + methodName + " 重复");
+                if (descriptors.containsKey(methodName)) {
+                    // 重载方法需通过FgbServerMethod指定不同的command
+                    throw new RuntimeException("Class: " + fgbServerClass.getName() + ", Method: " + methodName + " 重复, 与 " + descriptors.get(methodName).getMethod() + " 冲突");
                 }
-                FastMethod fastMethod = FastClass.create(fgbServerClass).getMethod(targetMethod.getName(), targetMethod.getParameterTypes());
+                FastMethod fastMethod = fastClass.getMethod(targetMethod);
                 if (fastMethod == null) {
                     throw new RuntimeException("Class: " + fgbServerClass.getName() + ", Method: " + targetMethod.getName() + " Invoke Exception");
                 }
-                FAST_METHOD_MAP.put(key, fastMethod);
+                descriptors.put(methodName, new FgbServerMethodDescriptor(methodName, targetMethod, fastMethod, targetMethod.getAnnotation(FgbServerMethod.class).batch()));
+                for (Type parameterType : targetMethod.getGenericParameterTypes()) {
+                    this.codec.allowType(parameterType);
+                }
                 LOGGER.debug(this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + methodName + " 已启动");
             }
         }
+        this.methodDescriptors = Collections.unmodifiableMap(descriptors);
         LOGGER.info(this.fgbType.getName() + "-FgbServerHandler-" + this.fgbName + " 已启动");
     }
 
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    void setAccessLog(FgbAccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    void setAckCoalescer(FgbAckCoalescer ackCoalescer) {
+        this.ackCoalescer = ackCoalescer;
+    }
+
+    void setCompression(FgbCompressionType compression, int compressThreshold) {
+        this.compression = compression;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        // 容器停止前确认已完成的消息，避免关闭channel后被重新投递
+        if (this.ackCoalescer != null) {
+            this.ackCoalescer.close();
+        }
+    }
+
+    FgbServerCallStats getCallStats() {
+        return this.callStats;
+    }
+
+    /**
+     * 超过截止时间被丢弃的请求数
+     *
+     * @return
+     */
+    public long getExpiredCount() {
+        return this.expired.sum();
+    }
+
+    Collection<FgbServerMethodDescriptor> getMethodDescriptors() {
+        return this.methodDescriptors.values();
+    }
+
+    /**
+     * 是否存在批量消费方法，存在时ASYNC监听开启批量接收
+     *
+     * @return
+     */
+    boolean hasBatchMethod() {
+        for (FgbServerMethodDescriptor descriptor : this.methodDescriptors.values()) {
+            if (descriptor.isBatch()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void onMessage(Message message, Channel channel) throws Exception {
-        MessageProperties messageProperties = null;
-        String messageStr = null;
+        long receivedAt = System.currentTimeMillis();
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        delivered(channel, deliveryTag);
+        if (!BATCHING_STRATEGY.canDebatch(message.getMessageProperties())) {
+            message.getMessageProperties().setHeader(FgbHeaderConstant.RECEIVED_AT, receivedAt);
+            execute(() -> dispatch(message, channel, () -> ack(channel, deliveryTag)));
+            return;
+        }
+        // 客户端批量发送的消息，拆分后逐条调用，全部完成后确认一次；每条消息有独立的消息属性和消息头
+        List<Message> fragments = new ArrayList<>();
         try {
-            messageProperties = message.getMessageProperties();
-            messageStr = new String(message.getBody(), StandardCharsets.UTF_8);
-            // 构建返回JSON值
-            JSONObject resultJson = new JSONObject();
+            BATCHING_STRATEGY.deBatch(message, fragments::add);
+        } catch (Exception e) {
+            LOGGER.error(this.fgbType.getName() + "-FgbServer-" + this.fgbName + " Bad Batched Message! Received: " + this.accessLog.payload(message), e);
+            ack(channel, deliveryTag);
+            return;
+        }
+        AtomicInteger pending = new AtomicInteger(fragments.size());
+        Runnable batchAck = () -> {
+            if (pending.decrementAndGet() == 0) {
+                ack(channel, deliveryTag);
+            }
+        };
+        for (Message fragment : fragments) {
+            fragment.getMessageProperties().setHeader(FgbHeaderConstant.RECEIVED_AT, receivedAt);
+            execute(() -> dispatch(fragment, channel, batchAck));
+        }
+    }
+
+    @Override
+    public void onMessageBatch(List<Message> messages, Channel channel) {
+        Set<Long> deliveryTags = new LinkedHashSet<>();
+        Map<FgbServerMethodDescriptor, List<Object>> batches = new LinkedHashMap<>();
+        List<Message> singleMessages = new ArrayList<>();
+        List<FgbRequest> singleRequests = new ArrayList<>();
+        long[] decodeNanos = new long[messages.size()];
+        long receivedAt = System.currentTimeMillis();
+        for (Message message : messages) {
+            message.getMessageProperties().setHeader(FgbHeaderConstant.RECEIVED_AT, receivedAt);
+            // 客户端批量发送的消息拆分后共用同一个deliveryTag
+            if (deliveryTags.add(message.getMessageProperties().getDeliveryTag())) {
+                delivered(channel, message.getMessageProperties().getDeliveryTag());
+            }
+            FgbCodec messageCodec = FgbCodecRegistry.getCodec(message.getMessageProperties().getContentType(), this.codec);
             try {
-                // 组装参数json
-                JSONObject paramData = JSON.parseObject(messageStr);
-                // 获得当前command
-                String command = paramData.getString("command");
-                if (StringUtils.isEmpty(command)) {
-                    LOGGER.error("Method Invoke Exception: Command 参数为空, " + this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Received: " + messageStr);
-                    return;
+                long decodeStart = System.nanoTime();
+                FgbRequest request = messageCodec.decodeRequest(body(message));
+                FgbServerMethodDescriptor descriptor = this.methodDescriptors.get(request.getCommand());
+                if (descriptor != null && descriptor.isBatch()) {
+                    batches.computeIfAbsent(descriptor, key -> new ArrayList<>()).add(descriptor.decodeBatchElement(request));
+                    descriptor.getMetrics().decoded(System.nanoTime() - decodeStart);
+                } else {
+                    decodeNanos[singleMessages.size()] = System.nanoTime() - decodeStart;
+                    singleMessages.add(message);
+                    singleRequests.add(request);
                 }
-                // 获取data数据
-                JSONObject data = paramData.getJSONObject("data");
-                if (data == null) {
-                    LOGGER.error("Method Invoke Exception: Data 参数错误, " + this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + command + ", Received: " + messageStr);
-                    return;
-                }
-                // 异步执行任务
-                if (FgbType.ASYNC == this.fgbType) {
-                    long start = System.currentTimeMillis();
-                    asyncExecute(command, data);
-                    double offset = System.currentTimeMillis() - start;
-                    LOGGER.info("Duration: " + offset + "ms, " + this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + command + ", Received: " + messageStr);
-                    if (offset > this.slowCallTime) {
-                        LOGGER.warn("Duration: " + offset + "ms, " + this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + command + ", Slower Called, Received: " + messageStr);
-                    }
-                    return;
-                }
-                // 同步执行任务并返回结果
-                long start = System.currentTimeMillis();
-                Object result = syncExecute(command, data);
-                if (result != null) {
-                    double offset = System.currentTimeMillis() - start;
-                    LOGGER.info("Duration: " + offset + "ms, " + this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + command + ", Received: " + messageStr);
-                    if (offset > this.slowCallTime) {
-                        LOGGER.warn("Duration: " + offset + "ms, " + this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + command + ", Call Slowing");
-                    }
-                    resultJson.put("_data", result);
-                }
-            } catch (InvocationTargetException e) {
-                LOGGER.error("Method Invoke Target Exception! Received: " + messageStr);
-                e.printStackTrace();
             } catch (Exception e) {
-                LOGGER.error("Method Invoke Exception! Received: " + messageStr);
+                LOGGER.error("Method Invoke Exception! Received: " + this.accessLog.payload(message));
                 e.printStackTrace();
             }
-            // 构建配置
-            AMQP.BasicProperties replyProps = new AMQP.BasicProperties.Builder().correlationId(messageProperties.getCorrelationId()).contentEncoding(StandardCharsets.UTF_8.name()).contentType(messageProperties.getContentType()).build();
-            // 反馈消息
-            channel.basicPublish(messageProperties.getReplyToAddress().getExchangeName(), messageProperties.getReplyToAddress().getRoutingKey(), replyProps, resultJson.toJSONString().getBytes(StandardCharsets.UTF_8));
+        }
+        // 整批全部处理完成后确认，多出的一次计数在分发结束后释放
+        AtomicInteger pending = new AtomicInteger(batches.size() + singleMessages.size() + 1);
+        Runnable batchAck = () -> {
+            if (pending.decrementAndGet() == 0) {
+                for (Long deliveryTag : deliveryTags) {
+                    ack(channel, deliveryTag);
+                }
+            }
+        };
+        for (Map.Entry<FgbServerMethodDescriptor, List<Object>> batch : batches.entrySet()) {
+            execute(() -> {
+                invokeBatch(batch.getKey(), batch.getValue());
+                batchAck.run();
+            });
+        }
+        for (int i = 0; i < singleMessages.size(); i++) {
+            Message message = singleMessages.get(i);
+            FgbRequest request = singleRequests.get(i);
+            long decoded = decodeNanos[i];
+            FgbCodec messageCodec = FgbCodecRegistry.getCodec(message.getMessageProperties().getContentType(), this.codec);
+            execute(() -> {
+                message.getMessageProperties().setHeader(FgbHeaderConstant.DISPATCHED_AT, System.currentTimeMillis());
+                invoke(message, channel, batchAck, messageCodec, request, System.nanoTime(), decoded);
+            });
+        }
+        batchAck.run();
+    }
+
+    /**
+     * 在方法执行器中执行，执行器拒绝时在消费线程中执行以减缓接收
+     *
+     * @param task 调用任务
+     */
+    private void execute(Runnable task) {
+        if (this.executor == null) {
+            task.run();
+            return;
+        }
+        try {
+            this.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * 批量调用目标方法
+     *
+     * @param descriptor 调用描述
+     * @param args       每次调用的参数
+     */
+    private void invokeBatch(FgbServerMethodDescriptor descriptor, List<Object> args) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        descriptor.getMetrics().callStarted();
+        try {
+            descriptor.invoke(this.fgbServerBean, new Object[]{args});
+        } catch (InvocationTargetException e) {
+            failed = true;
+            LOGGER.error("Method Invoke Target Exception! Method: " + descriptor.getCommand() + ", Batch: " + args.size());
+            e.printStackTrace();
         } catch (Exception e) {
-            LOGGER.error(this.fgbType.getName() + "-FgbServer-" + this.fgbName + " Exception! Received: " + messageStr);
+            failed = true;
+            LOGGER.error("Method Invoke Exception! Method: " + descriptor.getCommand() + ", Batch: " + args.size());
             e.printStackTrace();
-        } finally {
-            // 确认处理任务
-            if (messageProperties != null) {
-                channel.basicAck(messageProperties.getDeliveryTag(), false);
-            }
         }
+        long elapsed = System.nanoTime() - start;
+        String outcome = failed ? FgbMetrics.ERROR : FgbMetrics.SUCCESS;
+        descriptor.getMetrics().callCompleted(outcome, elapsed);
+        this.callStats.record(TimeUnit.NANOSECONDS.toMillis(elapsed));
+        this.accessLog.log(this.accessLogSource, descriptor.getCommand(), elapsed, outcome, "Batch: " + args.size());
     }
 
     /**
-     * 同步调用
+     * 解码并调用目标方法
      *
-     * @param command 既fgbservermethod注解的Value值
-     * @param data    参数
-     * @throws InvocationTargetException
-     */
-    private void asyncExecute(String command, JSONObject data) throws InvocationTargetException {
-        // 获取当前服务的反射方法调用
-        String key = this.fgbType.getName() + "_" + this.fgbName + "_" + command;
-        // 通过缓存来优化性能
-        FastMethod fastMethod = FAST_METHOD_MAP.get(key);
-        if (fastMethod == null) {
-            LOGGER.error(this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + command + " Not Found");
+     * @param message 请求消息
+     * @param channel 消费通道
+     * @param ack     处理完成后的确认
+     */
+    private void dispatch(Message message, Channel channel, Runnable ack) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        if (expired(message, now)) {
+            ack.run();
+            return;
+        }
+        message.getMessageProperties().setHeader(FgbHeaderConstant.DISPATCHED_AT, now);
+        // 按content-type选择编解码器
+        FgbCodec messageCodec = FgbCodecRegistry.getCodec(message.getMessageProperties().getContentType(), this.codec);
+        if (replyMemoized(message, channel, ack, messageCodec, start)) {
+            return;
+        }
+        FgbRequest request;
+        try {
+            // 解码调用请求
+            request = messageCodec.decodeRequest(body(message));
+        } catch (Exception e) {
+            LOGGER.error("Method Invoke Exception! Received: " + this.accessLog.payload(message));
+            e.printStackTrace();
+            complete(message, channel, ack, messageCodec, null, null, null, start, null, true);
             return;
         }
-        List args = convertParamsTypes(command, data);
-        // 通过发射来调用方法
-        fastMethod.invoke(this.fgbServerBean, args.toArray());
+        invoke(message, channel, ack, messageCodec, request, start, System.nanoTime() - start);
     }
 
     /**
-     * 参数转换
+     * 请求是否已超过 fgb-deadline 截止时间，客户端已不再等待答复，过期时不解码也不调用
+     * 旧版本客户端和ASYNC调用没有截止时间
      *
-     * @param command 既fgbservermethod注解的Value值
-     * @param data    调用参数
+     * @param message 请求消息
+     * @param now     当前时间
      * @return
      */
-    @SuppressWarnings("all")
-    private List convertParamsTypes(String command, JSONObject data) {
-        List args = new ArrayList();
-        Class<?> targetClazz = fgbServerBean.getClass();
-        if (fgbServerBean.getClass().getName().contains("CGLIB")) {
-            targetClazz = fgbServerBean.getClass().getSuperclass();
-        }
-        for (Method targetMethod : targetClazz.getMethods()) {
-            if (targetMethod.getName().equals(command)) {
-                Parameter[] parameters = targetMethod.getParameters();
-                for (int j = 0; j < parameters.length; j++) {
-                    String param = data.getString(String.valueOf(j));
-                    Type type = parameters[j].getParameterizedType();
-                    if (!StringUtils.isEmpty(param)) {
-                        try {
-                            args.add(JSON.parseObject(param, type));
-                        } catch (JSONException e) {
-                            args.add(JSON.parseObject(JSON.toJSONString(param), type));
+    private boolean expired(Message message, long now) {
+        Object deadline = message.getMessageProperties().getHeaders().get(FgbHeaderConstant.DEADLINE);
+        if (!(deadline instanceof Number) || ((Number) deadline).longValue() > now) {
+            return false;
+        }
+        this.expired.increment();
+        FgbServerMethodDescriptor descriptor = descriptor(message);
+        if (descriptor != null) {
+            descriptor.getMetrics().callExpired();
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + message.getMessageProperties().getHeaders().get(FgbHeaderConstant.COMMAND)
+                    + " Expired " + (now - ((Number) deadline).longValue()) + "ms, Dropped");
+        }
+        return true;
+    }
+
+    /**
+     * 按 fgb-command 消息头找到开启结果缓存的方法，命中时直接答复缓存的结果
+     *
+     * @param message      请求消息
+     * @param channel      消费通道
+     * @param ack          处理完成后的确认
+     * @param messageCodec 编解码器
+     * @param start        开始处理时间
+     * @return 是否已答复
+     */
+    private boolean replyMemoized(Message message, Channel channel, Runnable ack, FgbCodec messageCodec, long start) {
+        FgbServerMethodDescriptor descriptor = descriptor(message);
+        if (descriptor == null || descriptor.getMemo() == null || message.getMessageProperties().getReplyToAddress() == null) {
+            return false;
+        }
+        byte[] result = descriptor.getMemo().get(message);
+        if (result == null) {
+            return false;
+        }
+        FgbMetrics metrics = descriptor.getMetrics();
+        metrics.callStarted();
+        FgbLatencyBreakdown breakdown = received(metrics, message);
+        boolean failed = false;
+        try {
+            metrics.replySize(reply(message.getMessageProperties(), channel, messageCodec, result));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + descriptor.getCommand() + " Memoized");
+            }
+        } catch (Exception e) {
+            failed = true;
+            LOGGER.error(this.fgbType.getName() + "-FgbServer-" + this.fgbName + " Exception! Method: " + descriptor.getCommand(), e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            String outcome = failed ? FgbMetrics.ERROR : FgbMetrics.MEMOIZED;
+            this.callStats.record(TimeUnit.NANOSECONDS.toMillis(elapsed));
+            metrics.callCompleted(outcome, elapsed);
+            this.accessLog.log(this.accessLogSource, descriptor.getCommand(), elapsed, outcome, message, breakdown);
+            ack.run();
+        }
+        return true;
+    }
+
+    /**
+     * 按 fgb-command 消息头找到调用描述，无需解码消息体
+     *
+     * @param message 请求消息
+     * @return 旧版本客户端没有该消息头，返回null
+     */
+    private FgbServerMethodDescriptor descriptor(Message message) {
+        Object command = message.getMessageProperties().getHeaders().get(FgbHeaderConstant.COMMAND);
+        return command == null ? null : this.methodDescriptors.get(command.toString());
+    }
+
+    /**
+     * 记录请求大小、在队列中和等待执行器线程的时间
+     *
+     * @param metrics 调用指标
+     * @param message 请求消息
+     * @return 各阶段耗时，之后由调用过程补充decode、execute、encode
+     */
+    private FgbLatencyBreakdown received(FgbMetrics metrics, Message message) {
+        metrics.requestSize(message.getBody().length);
+        FgbLatencyBreakdown breakdown = FgbLatencyBreakdown.received(message.getMessageProperties());
+        if (breakdown.getQueueWait() >= 0) {
+            metrics.queueWait(breakdown.getQueueWait());
+        }
+        if (breakdown.getDispatchWait() >= 0) {
+            metrics.dispatchWait(breakdown.getDispatchWait());
+        }
+        return breakdown;
+    }
+
+    /**
+     * 调用目标方法
+     *
+     * @param message      请求消息
+     * @param channel      消费通道
+     * @param ack          处理完成后的确认
+     * @param messageCodec 编解码器
+     * @param request      调用请求
+     * @param start        开始处理时间(System.nanoTime)
+     * @param decodeNanos  解码请求的耗时
+     */
+    private void invoke(Message message, Channel channel, Runnable ack, FgbCodec messageCodec, FgbRequest request, long start, long decodeNanos) {
+        String command = null;
+        Object result = null;
+        boolean failed = false;
+        FgbLatencyBreakdown breakdown = null;
+        try {
+            // 获得当前command
+            command = request.getCommand();
+            if (StringUtils.isEmpty(command)) {
+                LOGGER.error("Method Invoke Exception: Command 参数为空, " + this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Received: " + this.accessLog.payload(request));
+                ack.run();
+                return;
+            }
+            FgbServerMethodDescriptor descriptor = this.methodDescriptors.get(command);
+            if (descriptor == null) {
+                LOGGER.error(this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + command + " Not Found");
+            } else {
+                FgbMetrics metrics = descriptor.getMetrics();
+                metrics.callStarted();
+                // lambda中使用的不可变引用
+                FgbLatencyBreakdown phases = breakdown = received(metrics, message);
+                long decodeStart = System.nanoTime();
+                Object[] args = descriptor.decodeArgs(request);
+                long executeStart = System.nanoTime();
+                phases.setDecode(decodeNanos + executeStart - decodeStart);
+                metrics.decoded(decodeNanos + executeStart - decodeStart);
+                // 通过反射来调用方法
+                try {
+                    result = descriptor.invoke(this.fgbServerBean, args);
+                } finally {
+                    phases.setExecute(System.nanoTime() - executeStart);
+                }
+                if (descriptor.isAsyncResult() && result != null) {
+                    // 异步结果完成后再答复和确认，不占用消费线程
+                    String asyncCommand = command;
+                    descriptor.toCompletionStage(result).whenComplete((value, e) -> {
+                        phases.setExecute(System.nanoTime() - executeStart);
+                        if (e != null) {
+                            LOGGER.error("Method Invoke Target Exception! Received: " + this.accessLog.payload(request), e);
                         }
-                    } else {
-                        args.add(param);
-                    }
+                        complete(message, channel, ack, messageCodec, asyncCommand, request, phases, start, value, e != null);
+                    });
+                    return;
                 }
             }
+        } catch (InvocationTargetException e) {
+            failed = true;
+            LOGGER.error("Method Invoke Target Exception! Received: " + this.accessLog.payload(request));
+            e.printStackTrace();
+        } catch (Exception e) {
+            failed = true;
+            LOGGER.error("Method Invoke Exception! Received: " + this.accessLog.payload(request));
+            e.printStackTrace();
+        }
+        complete(message, channel, ack, messageCodec, command, request, breakdown, start, result, failed);
+    }
+
+    /**
+     * 调用完成，答复并确认消息
+     *
+     * @param message      请求消息
+     * @param channel      消费通道
+     * @param ack          确认
+     * @param messageCodec 编解码器
+     * @param command      既fgbservermethod注解的Value值
+     * @param request      调用请求
+     * @param breakdown    各阶段耗时，未找到方法时为null
+     * @param start        开始处理时间(System.nanoTime)
+     * @param result       调用结果
+     * @param failed       调用是否失败
+     */
+    private void complete(Message message, Channel channel, Runnable ack, FgbCodec messageCodec, String command, FgbRequest request,
+                          FgbLatencyBreakdown breakdown, long start, Object result, boolean failed) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        FgbServerMethodDescriptor descriptor = command == null ? null : this.methodDescriptors.get(command);
+        FgbMetrics metrics = descriptor == null ? FgbMetrics.NOOP : descriptor.getMetrics();
+        try {
+            this.callStats.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (breakdown != null && breakdown.getExecute() >= 0) {
+                metrics.executed(breakdown.getExecute());
+            }
+            // 异步执行任务或无需答复
+            if (FgbType.ASYNC == this.fgbType || messageProperties.getReplyToAddress() == null) {
+                return;
+            }
+            long encodeStart = System.nanoTime();
+            byte[] replyBody = messageCodec.encodeResult(result);
+            long encodeNanos = System.nanoTime() - encodeStart;
+            metrics.encoded(encodeNanos);
+            if (breakdown != null) {
+                breakdown.setEncode(encodeNanos);
+            }
+            if (result != null && descriptor != null && descriptor.getMemo() != null) {
+                descriptor.getMemo().put(message, replyBody);
+            }
+            metrics.replySize(reply(messageProperties, channel, messageCodec, replyBody));
+        } catch (Exception e) {
+            failed = true;
+            LOGGER.error(this.fgbType.getName() + "-FgbServer-" + this.fgbName + " Exception! Received: " + this.accessLog.payload(request));
+            e.printStackTrace();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            String outcome = failed ? FgbMetrics.ERROR : FgbMetrics.SUCCESS;
+            metrics.callCompleted(outcome, elapsed);
+            this.accessLog.log(this.accessLogSource, command, elapsed, outcome, request == null ? message : request, breakdown);
+            // 确认处理任务
+            ack.run();
         }
-        return args;
     }
 
     /**
-     * 异步调用
+     * 发送答复，客户端可解压时压缩较大的答复
      *
-     * @param command 既fgbservermethod注解的Value值
-     * @param data    调用参数
+     * @param messageProperties 请求消息属性
+     * @param channel           消费通道
+     * @param messageCodec      编解码器
+     * @param replyBody         编码后的结果
+     * @return 发送的答复字节数
+     * @throws IOException
+     */
+    private int reply(MessageProperties messageProperties, Channel channel, FgbCodec messageCodec, byte[] replyBody) throws IOException {
+        String contentEncoding = StandardCharsets.UTF_8.name();
+        // 客户端可解压时压缩较大的答复
+        if (this.compression != FgbCompressionType.NONE && replyBody.length >= this.compressThreshold
+                && CompressionUtil.accepts(messageProperties.getHeaders().get(FgbHeaderConstant.ACCEPT_ENCODING), this.compression)) {
+            replyBody = CompressionUtil.compress(replyBody, this.compression);
+            contentEncoding = this.compression.getName();
+        }
+        // 带回请求各阶段的时间，客户端据此拆分调用耗时
+        Map<String, Object> headers = new HashMap<>(8);
+        for (String name : REPLY_TIMESTAMPS) {
+            Object value = messageProperties.getHeaders().get(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        headers.put(FgbHeaderConstant.COMPLETED_AT, System.currentTimeMillis());
+        // 构建配置
+        AMQP.BasicProperties replyProps = new AMQP.BasicProperties.Builder().correlationId(messageProperties.getCorrelationId()).contentEncoding(contentEncoding).contentType(messageCodec.getContentType()).headers(headers).build();
+        // 反馈消息
+        channel.basicPublish(messageProperties.getReplyToAddress().getExchangeName(), messageProperties.getReplyToAddress().getRoutingKey(), replyProps, replyBody);
+        return replyBody.length;
+    }
+
+    /**
+     * 按content-encoding解压后的消息体
+     *
+     * @param message 请求消息
      * @return
-     * @throws InvocationTargetException
-     * @throws IllegalAccessException
-     * @throws InstantiationException
-     */
-    private Object syncExecute(String command, JSONObject data) throws InvocationTargetException, IllegalAccessException, InstantiationException {
-        // 获取当前服务的反射方法调用
-        String key = this.fgbType.getName() + "_" + this.fgbName + "_" + command;
-        // 通过缓存来优化性能
-        FastMethod fastMethod = FAST_METHOD_MAP.get(key);
-        if (fastMethod == null) {
-            LOGGER.error(this.fgbType.getName() + "-FgbServer-" + this.fgbName + ", Method: " + command + " Not Found");
-            return null;
-        }
-        List args = convertParamsTypes(command, data);
-        // 通过反射来调用方法
-        return fastMethod.invoke(this.fgbServerBean, args.toArray());
+     * @throws IOException
+     */
+    private byte[] body(Message message) throws IOException {
+        return CompressionUtil.decompress(message.getBody(), message.getMessageProperties().getContentEncoding());
+    }
+
+    /**
+     * 接收到消息，合并确认时记录待确认的消息
+     *
+     * @param channel     消费通道
+     * @param deliveryTag 消息标识
+     */
+    private void delivered(Channel channel, long deliveryTag) {
+        if (this.ackCoalescer != null) {
+            this.ackCoalescer.delivered(channel, deliveryTag);
+        }
+    }
+
+    /**
+     * 确认消息
+     *
+     * @param channel     消费通道
+     * @param deliveryTag 消息标识
+     */
+    private void ack(Channel channel, long deliveryTag) {
+        if (this.ackCoalescer != null) {
+            this.ackCoalescer.completed(channel, deliveryTag);
+            return;
+        }
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (Exception e) {
+            LOGGER.error(this.fgbType.getName() + "-FgbServer-" + this.fgbName + " Ack Exception! DeliveryTag: " + deliveryTag, e);
+        }
     }
 
 }
@@ -0,0 +1,125 @@
+package com.gaad.rabbitmq.fgb.server;
+
+import com.gaad.rabbitmq.fgb.util.LocalCache;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SYNC服务方法的结果缓存，以请求消息的content-type、content-encoding和原始消息体(command + 参数)为key缓存编码后的结果
+ * 命中时不再解码参数和调用方法，直接答复；只适用于无副作用的方法，结果为null时不缓存
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class FgbServerMemo {
+
+    private final String name;
+
+    private final LocalCache<Key, byte[]> cache;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param name       缓存名称
+     * @param ttl        写入后的有效时间(毫秒)
+     * @param maxEntries 最大条数
+     * @param maxBytes   最大字节数(请求和结果之和)，0时只按条数限制
+     */
+    public FgbServerMemo(String name, long ttl, int maxEntries, long maxBytes) {
+        this.name = name;
+        this.cache = new LocalCache<>(ttl, maxEntries, maxBytes, (key, result) -> key.body.length + result.length);
+    }
+
+    /**
+     * 获取缓存的结果
+     *
+     * @param message 请求消息
+     * @return 编码后的结果，未命中时返回null
+     */
+    byte[] get(Message message) {
+        byte[] result = this.cache.get(new Key(message));
+        if (result == null) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+        }
+        return result;
+    }
+
+    /**
+     * 缓存结果
+     *
+     * @param message 请求消息
+     * @param result  编码后的结果
+     */
+    void put(Message message, byte[] result) {
+        this.cache.put(new Key(message), result);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long size() {
+        return this.cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return "FgbServerMemo{name=" + this.name + ", size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "}";
+    }
+
+    /**
+     * 缓存key，相同参数使用不同编解码器或压缩方式时为不同的key
+     */
+    private static final class Key {
+
+        private final String contentType;
+
+        private final String contentEncoding;
+
+        private final byte[] body;
+
+        private final int hash;
+
+        Key(Message message) {
+            MessageProperties messageProperties = message.getMessageProperties();
+            this.contentType = messageProperties.getContentType();
+            this.contentEncoding = messageProperties.getContentEncoding();
+            this.body = message.getBody();
+            this.hash = 31 * Objects.hash(this.contentType, this.contentEncoding) + Arrays.hashCode(this.body);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.hash == key.hash && Arrays.equals(this.body, key.body)
+                    && Objects.equals(this.contentType, key.contentType) && Objects.equals(this.contentEncoding, key.contentEncoding);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.gaad.rabbitmq.fgb.server;
+
+import com.gaad.rabbitmq.fgb.codec.FgbRequest;
+import com.gaad.rabbitmq.fgb.metrics.FgbMetrics;
+import com.gaad.rabbitmq.fgb.util.ReactiveConverterUtil;
+import net.sf.cglib.reflect.FastMethod;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * FgbServerMethod调用描述，启动时按command预先解析，调用时不再做反射查找
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+final class FgbServerMethodDescriptor {
+
+    /**
+     * 既fgbservermethod注解的Value值
+     */
+    private final String command;
+
+    private final Method method;
+
+    private final FastMethod fastMethod;
+
+    /**
+     * 已解析泛型的参数类型，用于参数解码
+     */
+    private final Type[] parameterTypes;
+
+    /**
+     * 返回CompletionStage
+     */
+    private final boolean completionStageResult;
+
+    /**
+     * 返回reactor Mono/Flux
+     */
+    private final boolean reactiveResult;
+
+    /**
+     * 批量消费时List元素的类型，非批量消费时为null
+     */
+    private final Type[] batchElementTypes;
+
+    /**
+     * 结果缓存，未开启时为null，启动时设置
+     */
+    private FgbServerMemo memo;
+
+    /**
+     * 调用指标，启动时设置
+     */
+    private FgbMetrics metrics = FgbMetrics.NOOP;
+
+    FgbServerMethodDescriptor(String command, Method method, FastMethod fastMethod, boolean batch) {
+        this.command = command;
+        this.method = method;
+        this.fastMethod = fastMethod;
+        this.parameterTypes = method.getGenericParameterTypes();
+        this.batchElementTypes = batch ? new Type[]{batchElementType(method)} : null;
+        this.completionStageResult = CompletionStage.class.isAssignableFrom(method.getReturnType());
+        this.reactiveResult = ReactiveConverterUtil.isMono(method.getReturnType()) || ReactiveConverterUtil.isFlux(method.getReturnType());
+    }
+
+    String getCommand() {
+        return this.command;
+    }
+
+    Method getMethod() {
+        return this.method;
+    }
+
+    FgbServerMemo getMemo() {
+        return this.memo;
+    }
+
+    void setMemo(FgbServerMemo memo) {
+        this.memo = memo;
+    }
+
+    FgbMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    void setMetrics(FgbMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 是否为批量消费
+     *
+     * @return
+     */
+    boolean isBatch() {
+        return this.batchElementTypes != null;
+    }
+
+    /**
+     * 是否为异步结果，异步结果完成后再答复
+     *
+     * @return
+     */
+    boolean isAsyncResult() {
+        return this.completionStageResult || this.reactiveResult;
+    }
+
+    /**
+     * 将异步结果转换为CompletionStage
+     *
+     * @param result 目标方法的返回值
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    CompletionStage<Object> toCompletionStage(Object result) {
+        if (this.reactiveResult) {
+            return ReactiveConverterUtil.toCompletionStage(result);
+        }
+        return (CompletionStage<Object>) result;
+    }
+
+    /**
+     * 解码参数
+     *
+     * @param request 调用请求
+     * @return
+     */
+    Object[] decodeArgs(FgbRequest request) {
+        if (isBatch()) {
+            return new Object[]{Collections.singletonList(decodeBatchElement(request))};
+        }
+        return request.getArgs(this.parameterTypes);
+    }
+
+    /**
+     * 批量消费时解码单次调用的参数
+     *
+     * @param request 调用请求
+     * @return
+     */
+    Object decodeBatchElement(FgbRequest request) {
+        return request.getArgs(this.batchElementTypes)[0];
+    }
+
+    /**
+     * 调用目标方法
+     *
+     * @param fgbServerBean fgbServerBean
+     * @param args          已解码的参数
+     * @return
+     * @throws InvocationTargetException
+     */
+    Object invoke(Object fgbServerBean, Object[] args) throws InvocationTargetException {
+        return this.fastMethod.invoke(fgbServerBean, args);
+    }
+
+    /**
+     * 校验批量消费方法，返回List元素的类型
+     */
+    private static Type batchElementType(Method method) {
+        if (method.getParameterCount() != 1 || !method.getParameterTypes()[0].isAssignableFrom(List.class) || method.getReturnType() != void.class) {
+            throw new RuntimeException("批量消费方法只能有一个List参数且返回void, Class: " + method.getDeclaringClass().getName() + ", Method: " + method.getName());
+        }
+        Type parameterType = method.getGenericParameterTypes()[0];
+        if (!(parameterType instanceof ParameterizedType)) {
+            return Object.class;
+        }
+        Type elementType = ((ParameterizedType) parameterType).getActualTypeArguments()[0];
+        if (elementType instanceof WildcardType) {
+            return ((WildcardType) elementType).getUpperBounds()[0];
+        }
+        return elementType;
+    }
+}
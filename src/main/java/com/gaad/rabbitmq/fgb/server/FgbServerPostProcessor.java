@@ -1,12 +1,24 @@
 package com.gaad.rabbitmq.fgb.server;
 
 import com.gaad.rabbitmq.fgb.annotation.FgbServer;
+import com.gaad.rabbitmq.fgb.annotation.FgbServerMethod;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.log.FgbAccessLog;
+import com.gaad.rabbitmq.fgb.metrics.FgbMetricsRegistry;
+import com.gaad.rabbitmq.fgb.model.enums.FgbContainerType;
 import com.gaad.rabbitmq.fgb.model.enums.FgbType;
+import com.gaad.rabbitmq.fgb.util.CompressionUtil;
+import com.gaad.rabbitmq.fgb.util.FgbBatchingStrategy;
+import com.gaad.rabbitmq.fgb.util.ListenerContainerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
 import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,12 +28,16 @@ import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import java.lang.annotation.Annotation;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
 
 /**
  * 后置处理器  处理FgbServer注解
@@ -32,6 +48,8 @@ import java.util.Map;
 @Component
 public class FgbServerPostProcessor implements BeanPostProcessor {
 
+    private final static Logger LOGGER = LoggerFactory.getLogger(FgbServerPostProcessor.class);
+
     @Autowired
     private ConfigurableApplicationContext applicationContext;
     @Autowired
@@ -39,6 +57,9 @@ public class FgbServerPostProcessor implements BeanPostProcessor {
     private ConnectionFactory connectionFactory;
     private DirectExchange syncDirectExchange;
     private DirectExchange asyncDirectExchange;
+    private FgbConsumerScaler consumerScaler;
+    private FgbMetricsRegistry metricsRegistry;
+    private FgbAccessLog accessLog;
 
     @Override
     public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
@@ -75,6 +96,9 @@ public class FgbServerPostProcessor implements BeanPostProcessor {
      */
     private void fgbServerStart(Object fgbServerBean, FgbServer fgbServer) {
         String fgbName = fgbServer.value();
+        FgbCodec codec = FgbCodecRegistry.getCodec(fgbServer.codec());
+        Executor executor = executor(fgbServer.executor());
+        CompressionUtil.checkAvailable(fgbServer.compression());
         for (FgbType fgbType : fgbServer.type()) {
             switch (fgbType) {
                 case SYNC:
@@ -82,14 +106,20 @@ public class FgbServerPostProcessor implements BeanPostProcessor {
                     params.put("x-message-ttl", fgbServer.xMessageTTL());
                     Queue syncQueue = queue(fgbName, fgbType, params);
                     binding(fgbName, fgbType, syncQueue);
-                    FgbServerHandler syncServerHandler = fgbServerHandler(fgbName, fgbType, fgbServerBean);
-                    messageListenerContainer(fgbName, fgbType, syncQueue, syncServerHandler, fgbServer.threadNum());
+                    FgbServerHandler syncServerHandler = fgbServerHandler(fgbName, fgbType, fgbServerBean, codec, executor);
+                    syncServerHandler.setCompression(fgbServer.compression(), fgbServer.compressThreshold());
+                    memos(fgbName, fgbType, syncServerHandler);
+                    messageListenerContainer(fgbName, fgbType, syncQueue, syncServerHandler, fgbServer);
                     break;
                 case ASYNC:
                     Queue asyncQueue = queue(fgbName, fgbType, null);
                     binding(fgbName, fgbType, asyncQueue);
-                    FgbServerHandler asyncServerHandler = fgbServerHandler(fgbName, fgbType, fgbServerBean);
-                    messageListenerContainer(fgbName, fgbType, asyncQueue, asyncServerHandler, fgbServer.threadNum());
+                    FgbServerHandler asyncServerHandler = fgbServerHandler(fgbName, fgbType, fgbServerBean, codec, executor);
+                    if (fgbServer.ackBatchSize() > 1) {
+                        //合并确认
+                        asyncServerHandler.setAckCoalescer(new FgbAckCoalescer(fgbType.getName() + "-FgbServer-" + fgbName, fgbServer.ackBatchSize(), fgbServer.ackInterval()));
+                    }
+                    messageListenerContainer(fgbName, fgbType, asyncQueue, asyncServerHandler, fgbServer);
                     break;
                 default:
                     break;
@@ -121,33 +151,143 @@ public class FgbServerPostProcessor implements BeanPostProcessor {
     }
 
     /**
-     * 化实例化 FgbServerHandler
+     * 化实例化 FgbServerHandler，并为每个方法创建调用指标
      *
      * @param fgbName       fgb名称
      * @param fgbType       fgb调用类型
      * @param fgbServerBean fgbServerBean
+     * @param codec         默认编解码器
+     * @param executor      方法执行器，可为null
      * @return
      */
-    private FgbServerHandler fgbServerHandler(String fgbName, FgbType fgbType, Object fgbServerBean) {
-        return registerBean(this.applicationContext, fgbType.getName() + "-FgbServerHandler-" + fgbName, FgbServerHandler.class, fgbServerBean, fgbName, fgbType);
+    private FgbServerHandler fgbServerHandler(String fgbName, FgbType fgbType, Object fgbServerBean, FgbCodec codec, Executor executor) {
+        FgbServerHandler fgbServerHandler = registerBean(this.applicationContext, fgbType.getName() + "-FgbServerHandler-" + fgbName, FgbServerHandler.class, fgbServerBean, fgbName, fgbType, codec);
+        fgbServerHandler.setExecutor(executor);
+        fgbServerHandler.setAccessLog(getAccessLog());
+        FgbMetricsRegistry metricsRegistry = getMetricsRegistry();
+        for (FgbServerMethodDescriptor descriptor : fgbServerHandler.getMethodDescriptors()) {
+            descriptor.setMetrics(metricsRegistry.server(fgbName, fgbType, descriptor.getCommand()));
+        }
+        return fgbServerHandler;
+    }
+
+    /**
+     * 开启结果缓存的方法注册FgbServerMemo，只用于SYNC调用
+     *
+     * @param fgbName          fgb名称
+     * @param fgbType          fgb调用类型
+     * @param fgbServerHandler FgbServerHandler
+     */
+    private void memos(String fgbName, FgbType fgbType, FgbServerHandler fgbServerHandler) {
+        for (FgbServerMethodDescriptor descriptor : fgbServerHandler.getMethodDescriptors()) {
+            FgbServerMethod fgbServerMethod = descriptor.getMethod().getAnnotation(FgbServerMethod.class);
+            if (fgbServerMethod.memoTtl() <= 0) {
+                continue;
+            }
+            if (descriptor.isBatch() || descriptor.getMethod().getReturnType() == void.class) {
+                throw new RuntimeException("FgbServer: " + fgbName + ", Method: " + descriptor.getCommand() + " 没有返回值，不支持结果缓存");
+            }
+            String memoName = fgbType.getName() + "-FgbServerMemo-" + fgbName + "-" + descriptor.getCommand();
+            descriptor.setMemo(registerBean(this.applicationContext, memoName, FgbServerMemo.class, memoName, fgbServerMethod.memoTtl(), fgbServerMethod.memoMaxEntries(), fgbServerMethod.memoMaxBytes()));
+        }
     }
 
     /**
-     * 实例化 SimpleMessageListenerContainer
+     * 获取方法执行器，内置的虚拟线程执行器在首次使用时注册
+     *
+     * @param executorName TaskExecutor bean名称
+     * @return
+     */
+    private Executor executor(String executorName) {
+        if (StringUtils.isEmpty(executorName)) {
+            return null;
+        }
+        if (VirtualThreadTaskExecutor.BEAN_NAME.equals(executorName) && !this.applicationContext.containsBean(executorName)) {
+            return registerBean(this.applicationContext, executorName, VirtualThreadTaskExecutor.class);
+        }
+        return this.applicationContext.getBean(executorName, Executor.class);
+    }
+
+    /**
+     * 实例化监听容器
      *
      * @param fgbName
      * @param fgbType
      * @param queue
      * @param fgbServerHandler
-     * @param threadNum
+     * @param fgbServer
      */
-    private void messageListenerContainer(String fgbName, FgbType fgbType, Queue queue, FgbServerHandler fgbServerHandler, int threadNum) {
-        SimpleMessageListenerContainer messageListenerContainer = registerBean(this.applicationContext, fgbType.getName() + "-MessageListenerContainer-" + fgbName, SimpleMessageListenerContainer.class, this.connectionFactory);
+    private void messageListenerContainer(String fgbName, FgbType fgbType, Queue queue, FgbServerHandler fgbServerHandler, FgbServer fgbServer) {
+        Environment environment = this.applicationContext.getEnvironment();
+        FgbContainerType containerType = ListenerContainerUtil.resolveType(fgbServer.containerType(), environment);
+        boolean consumerBatch = fgbType == FgbType.ASYNC && fgbServerHandler.hasBatchMethod();
+        if (consumerBatch && containerType == FgbContainerType.DIRECT) {
+            LOGGER.warn(fgbType.getName() + "-FgbServer-" + fgbName + " 存在批量消费方法，使用SIMPLE容器");
+            containerType = FgbContainerType.SIMPLE;
+        }
+        AbstractMessageListenerContainer messageListenerContainer = registerBean(this.applicationContext, fgbType.getName() + "-MessageListenerContainer-" + fgbName, ListenerContainerUtil.containerClass(containerType), this.connectionFactory);
         messageListenerContainer.setQueueNames(queue.getName());
         messageListenerContainer.setMessageListener(fgbServerHandler);
         //开启ack
         messageListenerContainer.setAcknowledgeMode(AcknowledgeMode.MANUAL);
-        messageListenerContainer.setConcurrentConsumers(threadNum);
+        //批量消息由FgbServerHandler拆分，整批处理完成后确认一次
+        messageListenerContainer.setDeBatchingEnabled(false);
+        int prefetch = ListenerContainerUtil.resolvePrefetch(fgbServer.prefetch(), containerType, environment);
+        if (prefetch > 0) {
+            messageListenerContainer.setPrefetchCount(prefetch);
+        }
+        if (consumerBatch) {
+            //批量接收，客户端批量发送的消息由容器拆分到同一批次中
+            SimpleMessageListenerContainer batchContainer = (SimpleMessageListenerContainer) messageListenerContainer;
+            batchContainer.setConsumerBatchEnabled(true);
+            batchContainer.setDeBatchingEnabled(true);
+            batchContainer.setBatchingStrategy(new FgbBatchingStrategy(0, 0, 0L));
+            batchContainer.setBatchSize(fgbServer.batchSize());
+            batchContainer.setReceiveTimeout(fgbServer.batchReceiveTimeout());
+        }
+        IntConsumer concurrency = ListenerContainerUtil.concurrency(messageListenerContainer);
+        concurrency.accept(fgbServer.threadNum());
+        if (fgbServer.maxThreadNum() > fgbServer.threadNum()) {
+            //按队列积压和调用耗时自动调整消费者数量
+            getConsumerScaler().register(fgbType.getName() + "-" + fgbName, concurrency, queue.getName(), fgbServerHandler.getCallStats(),
+                    fgbServer.threadNum(), fgbServer.maxThreadNum(), fgbServer.targetLatency(), fgbServer.targetQueueDepth());
+        }
+    }
+
+    /**
+     * 实例化消费者数量调整器，所有FgbServer共用
+     *
+     * @return
+     */
+    private FgbConsumerScaler getConsumerScaler() {
+        if (this.consumerScaler == null) {
+            this.consumerScaler = registerBean(this.applicationContext, "fgbConsumerScaler", FgbConsumerScaler.class, this.connectionFactory);
+        }
+        return this.consumerScaler;
+    }
+
+    /**
+     * 调用指标注册表，所有FgbServer共用
+     *
+     * @return
+     */
+    private FgbMetricsRegistry getMetricsRegistry() {
+        if (this.metricsRegistry == null) {
+            this.metricsRegistry = FgbMetricsRegistry.of(this.applicationContext, this.applicationContext.getEnvironment());
+        }
+        return this.metricsRegistry;
+    }
+
+    /**
+     * 访问日志，所有FgbServer共用
+     *
+     * @return
+     */
+    private FgbAccessLog getAccessLog() {
+        if (this.accessLog == null) {
+            this.accessLog = FgbAccessLog.of(this.applicationContext.getEnvironment());
+        }
+        return this.accessLog;
     }
 
     /**
@@ -0,0 +1,49 @@
+package com.gaad.rabbitmq.fgb.server;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 每个调用一个虚拟线程的执行器，需运行在JDK 21及以上版本
+ * 通过反射创建，项目仍可按JDK 8编译；FgbServer的executor指定为 {@link #BEAN_NAME} 时自动注册
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public class VirtualThreadTaskExecutor implements TaskExecutor, DisposableBean {
+
+    public static final String BEAN_NAME = "fgbVirtualThreadTaskExecutor";
+
+    private final ExecutorService executorService;
+
+    public VirtualThreadTaskExecutor() {
+        try {
+            // Thread.ofVirtual().name("fgb-virtual-", 0).factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "fgb-virtual-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            this.executorService = (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (NoSuchMethodException | ClassNotFoundException e) {
+            throw new RuntimeException("虚拟线程需要JDK 21及以上版本, 当前版本: " + System.getProperty("java.version"), e);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("虚拟线程执行器创建失败", e);
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.executorService.execute(task);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        this.executorService.shutdown();
+    }
+}
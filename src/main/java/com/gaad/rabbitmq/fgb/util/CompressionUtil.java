@@ -0,0 +1,129 @@
+package com.gaad.rabbitmq.fgb.util;
+
+import com.gaad.rabbitmq.fgb.model.enums.FgbCompressionType;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 消息体压缩，压缩方式由content-encoding标识；lz4-java为可选依赖，使用前需先判断 {@link #isAvailable(FgbCompressionType)}
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public class CompressionUtil {
+
+    private static final boolean LZ4_PRESENT = ClassUtils.isPresent("net.jpountz.lz4.LZ4FrameOutputStream", CompressionUtil.class.getClassLoader());
+
+    /**
+     * 本端可解压的压缩方式
+     */
+    private static final String ACCEPT_ENCODING = LZ4_PRESENT
+            ? FgbCompressionType.GZIP.getName() + "," + FgbCompressionType.LZ4.getName()
+            : FgbCompressionType.GZIP.getName();
+
+    public static boolean isAvailable(FgbCompressionType compressionType) {
+        return compressionType != FgbCompressionType.LZ4 || LZ4_PRESENT;
+    }
+
+    /**
+     * 校验压缩方式可用，启动时调用
+     *
+     * @param compressionType 压缩方式
+     */
+    public static void checkAvailable(FgbCompressionType compressionType) {
+        if (!isAvailable(compressionType)) {
+            throw new RuntimeException("压缩方式: " + compressionType.getName() + " 需要引入 org.lz4:lz4-java");
+        }
+    }
+
+    /**
+     * 本端可解压的压缩方式，写入请求的 fgb-accept-encoding 消息头
+     *
+     * @return
+     */
+    public static String acceptEncoding() {
+        return ACCEPT_ENCODING;
+    }
+
+    /**
+     * 对端是否可解压
+     *
+     * @param acceptEncoding  对端的 fgb-accept-encoding 消息头，旧版本客户端为null
+     * @param compressionType 压缩方式
+     * @return
+     */
+    public static boolean accepts(Object acceptEncoding, FgbCompressionType compressionType) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.toString().split(",")) {
+            if (compressionType.getName().equalsIgnoreCase(encoding.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 压缩消息体
+     *
+     * @param body            消息体
+     * @param compressionType 压缩方式
+     * @return
+     * @throws IOException
+     */
+    public static byte[] compress(byte[] body, FgbCompressionType compressionType) throws IOException {
+        if (compressionType == FgbCompressionType.NONE) {
+            return body;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (OutputStream compressor = compressionType == FgbCompressionType.LZ4 ? Lz4Compressor.compressor(out) : new GZIPOutputStream(out)) {
+            compressor.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 按content-encoding解压消息体，未压缩时原样返回
+     *
+     * @param body            消息体
+     * @param contentEncoding 消息的content-encoding
+     * @return
+     * @throws IOException
+     */
+    public static byte[] decompress(byte[] body, String contentEncoding) throws IOException {
+        FgbCompressionType compressionType = FgbCompressionType.getFgbCompressionType(contentEncoding);
+        if (compressionType == FgbCompressionType.NONE) {
+            return body;
+        }
+        checkAvailable(compressionType);
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        try (InputStream decompressor = compressionType == FgbCompressionType.LZ4 ? Lz4Compressor.decompressor(in) : new GZIPInputStream(in)) {
+            return StreamUtils.copyToByteArray(decompressor);
+        }
+    }
+
+    /**
+     * 引用lz4-java的类，只有在lz4-java存在时才会加载
+     */
+    private static class Lz4Compressor {
+
+        static OutputStream compressor(OutputStream out) throws IOException {
+            return new LZ4FrameOutputStream(out);
+        }
+
+        static InputStream decompressor(InputStream in) throws IOException {
+            return new LZ4FrameInputStream(in);
+        }
+    }
+}
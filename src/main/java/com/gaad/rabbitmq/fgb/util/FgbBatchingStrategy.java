@@ -0,0 +1,270 @@
+package com.gaad.rabbitmq.fgb.util;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessagePropertiesBuilder;
+import org.springframework.amqp.rabbit.batch.BatchingStrategy;
+import org.springframework.amqp.rabbit.batch.MessageBatch;
+import org.springframework.amqp.rabbit.batch.SimpleBatchingStrategy;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * fgb批量发送策略，与SimpleBatchingStrategy一样按条数、字节数、等待时间合并消息，等待时间从批次的第一条消息开始计算；
+ * 每条消息的消息头(command、发送时间等)随消息体写入批次，拆分后每条消息使用独立的MessageProperties
+ * <p>
+ * 批次中每条消息依次为：消息头长度(int)、消息头、消息体长度(int)、消息体；消息头只保留字符串和整数类型的值。
+ * 同时可拆分SimpleBatchingStrategy格式的批次
+ * 合并发送不是线程安全的，由BatchingRabbitTemplate加锁调用；拆分是线程安全的
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class FgbBatchingStrategy implements BatchingStrategy {
+
+    /**
+     * 批次格式，写入springBatchFormat消息头
+     */
+    public static final String BATCH_FORMAT = "fgbHeaders4";
+
+    private static final byte STRING = 'S';
+
+    private static final byte LONG = 'J';
+
+    private static final byte INT = 'I';
+
+    private static final BatchingStrategy LENGTH_HEADER4 = new SimpleBatchingStrategy(0, 0, 0L);
+
+    private final int batchSize;
+
+    private final int bufferLimit;
+
+    private final long timeout;
+
+    private final List<Message> messages = new ArrayList<>();
+
+    /**
+     * 与messages一一对应的已编码消息头
+     */
+    private final List<byte[]> headers = new ArrayList<>();
+
+    private String exchange;
+
+    private String routingKey;
+
+    private int currentSize;
+
+    /**
+     * 当前批次最晚的发送时间，由批次的第一条消息决定，之后的消息不再推迟
+     */
+    private long releaseAt;
+
+    /**
+     * @param batchSize   每批最多条数
+     * @param bufferLimit 每批最多字节数
+     * @param timeout     批次第一条消息最长的等待时间(毫秒)
+     */
+    public FgbBatchingStrategy(int batchSize, int bufferLimit, long timeout) {
+        this.batchSize = batchSize;
+        this.bufferLimit = bufferLimit;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public MessageBatch addToBatch(String exchange, String routingKey, Message message) {
+        if (this.exchange != null) {
+            Assert.isTrue(this.exchange.equals(exchange), "Cannot send to different exchanges in the same batch");
+        } else {
+            this.exchange = exchange;
+        }
+        if (this.routingKey != null) {
+            Assert.isTrue(this.routingKey.equals(routingKey), "Cannot send with different routing keys in the same batch");
+        } else {
+            this.routingKey = routingKey;
+        }
+        byte[] header = encodeHeaders(message.getMessageProperties().getHeaders());
+        int bufferUse = 8 + header.length + message.getBody().length;
+        MessageBatch batch = null;
+        if (this.messages.size() > 0 && this.currentSize + bufferUse > this.bufferLimit) {
+            batch = doReleaseBatch();
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+        }
+        if (this.messages.isEmpty()) {
+            this.releaseAt = System.currentTimeMillis() + this.timeout;
+        }
+        this.currentSize += bufferUse;
+        this.messages.add(message);
+        this.headers.add(header);
+        if (batch == null && (this.messages.size() >= this.batchSize || this.currentSize >= this.bufferLimit)) {
+            batch = doReleaseBatch();
+        }
+        return batch;
+    }
+
+    /**
+     * BatchingRabbitTemplate每次发送后按此时间重新调度，返回固定的发送时间，持续有消息时批次也不会被一直推迟
+     *
+     * @return
+     */
+    @Override
+    public Date nextRelease() {
+        if (this.messages.isEmpty() || this.timeout <= 0) {
+            return null;
+        }
+        if (this.currentSize >= this.bufferLimit) {
+            return new Date();
+        }
+        return new Date(this.releaseAt);
+    }
+
+    @Override
+    public Collection<MessageBatch> releaseBatches() {
+        MessageBatch batch = doReleaseBatch();
+        return batch == null ? Collections.emptyList() : Collections.singletonList(batch);
+    }
+
+    private MessageBatch doReleaseBatch() {
+        if (this.messages.isEmpty()) {
+            return null;
+        }
+        MessageBatch batch = new MessageBatch(this.exchange, this.routingKey, assembleMessage());
+        this.messages.clear();
+        this.headers.clear();
+        this.currentSize = 0;
+        this.exchange = null;
+        this.routingKey = null;
+        return batch;
+    }
+
+    private Message assembleMessage() {
+        if (this.messages.size() == 1) {
+            return this.messages.get(0);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(this.currentSize);
+        for (int i = 0; i < this.messages.size(); i++) {
+            byte[] header = this.headers.get(i);
+            byte[] body = this.messages.get(i).getBody();
+            buffer.putInt(header.length).put(header).putInt(body.length).put(body);
+        }
+        // 批次的消息属性取第一条消息，逐条的消息头已写入批次
+        MessageProperties messageProperties = MessagePropertiesBuilder.fromClonedProperties(this.messages.get(0).getMessageProperties())
+                .removeHeaders()
+                .setHeader(MessageProperties.SPRING_BATCH_FORMAT, BATCH_FORMAT)
+                .setHeader(AmqpHeaders.BATCH_SIZE, this.messages.size())
+                .build();
+        return new Message(buffer.array(), messageProperties);
+    }
+
+    @Override
+    public boolean canDebatch(MessageProperties properties) {
+        return BATCH_FORMAT.equals(properties.getHeaders().get(MessageProperties.SPRING_BATCH_FORMAT))
+                || LENGTH_HEADER4.canDebatch(properties);
+    }
+
+    /**
+     * 拆分批次，每条消息复制批次的消息属性，并还原各自的消息头
+     *
+     * @param message          批次消息
+     * @param fragmentConsumer 拆分后的消息
+     */
+    @Override
+    public void deBatch(Message message, Consumer<Message> fragmentConsumer) {
+        if (!BATCH_FORMAT.equals(message.getMessageProperties().getHeaders().get(MessageProperties.SPRING_BATCH_FORMAT))) {
+            // SimpleBatchingStrategy的各条消息共用同一个MessageProperties，逐条复制
+            LENGTH_HEADER4.deBatch(message, fragment -> fragmentConsumer.accept(new Message(fragment.getBody(), copy(fragment.getMessageProperties()))));
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(message.getBody());
+        while (buffer.hasRemaining()) {
+            MessageProperties messageProperties = copy(message.getMessageProperties());
+            messageProperties.getHeaders().remove(MessageProperties.SPRING_BATCH_FORMAT);
+            messageProperties.getHeaders().remove(AmqpHeaders.BATCH_SIZE);
+            decodeHeaders(message, buffer, messageProperties.getHeaders());
+            byte[] body = new byte[length(message, buffer)];
+            buffer.get(body);
+            messageProperties.setContentLength(body.length);
+            messageProperties.setLastInBatch(!buffer.hasRemaining());
+            fragmentConsumer.accept(new Message(body, messageProperties));
+        }
+    }
+
+    private static MessageProperties copy(MessageProperties messageProperties) {
+        return MessagePropertiesBuilder.fromClonedProperties(messageProperties).build();
+    }
+
+    private static byte[] encodeHeaders(Map<String, Object> headers) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+        try (DataOutputStream output = new DataOutputStream(bos)) {
+            for (Map.Entry<String, Object> header : headers.entrySet()) {
+                Object value = header.getValue();
+                if (value instanceof String) {
+                    output.writeUTF(header.getKey());
+                    output.writeByte(STRING);
+                    output.writeUTF((String) value);
+                } else if (value instanceof Long) {
+                    output.writeUTF(header.getKey());
+                    output.writeByte(LONG);
+                    output.writeLong((Long) value);
+                } else if (value instanceof Integer) {
+                    output.writeUTF(header.getKey());
+                    output.writeByte(INT);
+                    output.writeInt((Integer) value);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    private static void decodeHeaders(Message message, ByteBuffer buffer, Map<String, Object> headers) {
+        int length = length(message, buffer);
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(buffer.array(), buffer.position(), length))) {
+            buffer.position(buffer.position() + length);
+            while (input.available() > 0) {
+                String key = input.readUTF();
+                byte type = input.readByte();
+                if (type == STRING) {
+                    headers.put(key, input.readUTF());
+                } else if (type == LONG) {
+                    headers.put(key, input.readLong());
+                } else if (type == INT) {
+                    headers.put(key, input.readInt());
+                } else {
+                    throw badBatch(message, "Unknown header type " + type + " at offset " + buffer.position());
+                }
+            }
+        } catch (IOException e) {
+            throw new ListenerExecutionFailedException("Bad batched message received", e, message);
+        }
+    }
+
+    private static int length(Message message, ByteBuffer buffer) {
+        int length = buffer.remaining() < 4 ? -1 : buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw badBatch(message, "Insufficient batch data at offset " + buffer.position());
+        }
+        return length;
+    }
+
+    private static ListenerExecutionFailedException badBatch(Message message, String reason) {
+        return new ListenerExecutionFailedException("Bad batched message received", new MessageConversionException(reason), message);
+    }
+}
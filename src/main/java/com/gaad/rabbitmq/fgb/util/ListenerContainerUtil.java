@@ -0,0 +1,72 @@
+package com.gaad.rabbitmq.fgb.util;
+
+import com.gaad.rabbitmq.fgb.model.enums.FgbContainerType;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.core.env.Environment;
+
+import java.util.function.IntConsumer;
+
+/**
+ * 监听容器配置，注解未指定时使用 spring.rabbitmq.listener 下的配置
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public class ListenerContainerUtil {
+
+    /**
+     * 确定容器类型
+     *
+     * @param containerType 注解指定的类型
+     * @param environment   spring环境
+     * @return SIMPLE或DIRECT
+     */
+    public static FgbContainerType resolveType(FgbContainerType containerType, Environment environment) {
+        if (containerType != FgbContainerType.DEFAULT) {
+            return containerType;
+        }
+        FgbContainerType configured = FgbContainerType.getFgbContainerType(environment.getProperty("spring.rabbitmq.listener.type"));
+        return configured == FgbContainerType.DIRECT ? FgbContainerType.DIRECT : FgbContainerType.SIMPLE;
+    }
+
+    /**
+     * 确定预取数量
+     *
+     * @param prefetch      注解指定的预取数量
+     * @param containerType 已确定的容器类型
+     * @param environment   spring环境
+     * @return 0表示使用容器默认值
+     */
+    public static int resolvePrefetch(int prefetch, FgbContainerType containerType, Environment environment) {
+        if (prefetch > 0) {
+            return prefetch;
+        }
+        String key = containerType == FgbContainerType.DIRECT ? "spring.rabbitmq.listener.direct.prefetch" : "spring.rabbitmq.listener.simple.prefetch";
+        return environment.getProperty(key, Integer.class, 0);
+    }
+
+    /**
+     * 容器类型对应的实现类
+     *
+     * @param containerType 已确定的容器类型
+     * @return
+     */
+    public static Class<? extends AbstractMessageListenerContainer> containerClass(FgbContainerType containerType) {
+        return containerType == FgbContainerType.DIRECT ? DirectMessageListenerContainer.class : SimpleMessageListenerContainer.class;
+    }
+
+    /**
+     * 设置消费者数量的方法，运行中调用会增减消费者
+     *
+     * @param container 监听容器
+     * @return
+     */
+    public static IntConsumer concurrency(AbstractMessageListenerContainer container) {
+        if (container instanceof DirectMessageListenerContainer) {
+            return ((DirectMessageListenerContainer) container)::setConsumersPerQueue;
+        }
+        return ((SimpleMessageListenerContainer) container)::setConcurrentConsumers;
+    }
+}
@@ -0,0 +1,163 @@
+package com.gaad.rabbitmq.fgb.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.util.ClassUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * 带过期时间和容量限制的本地缓存，写入后ttl毫秒过期
+ * 存在caffeine时使用W-TinyLFU淘汰，否则使用LRU；caffeine不能同时限制条数和权重，配置了maxBytes时只按字节数限制
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+public class LocalCache<K, V> {
+
+    private static final boolean CAFFEINE_PRESENT = ClassUtils.isPresent("com.github.benmanes.caffeine.cache.Caffeine", LocalCache.class.getClassLoader());
+
+    private final Store<K, V> store;
+
+    /**
+     * @param ttl        写入后的有效时间(毫秒)
+     * @param maxEntries 最大条数
+     * @param maxBytes   最大字节数，0时只按条数限制
+     * @param weigher    计算缓存条目的字节数
+     */
+    public LocalCache(long ttl, int maxEntries, long maxBytes, ToIntBiFunction<K, V> weigher) {
+        this.store = CAFFEINE_PRESENT ? new CaffeineStore<>(ttl, maxEntries, maxBytes, weigher) : new LruStore<>(ttl, maxEntries, maxBytes, weigher);
+    }
+
+    /**
+     * @param key key
+     * @return 未命中或已过期时返回null
+     */
+    public V get(K key) {
+        return this.store.get(key);
+    }
+
+    public void put(K key, V value) {
+        this.store.put(key, value);
+    }
+
+    public long size() {
+        return this.store.size();
+    }
+
+    private interface Store<K, V> {
+
+        V get(K key);
+
+        void put(K key, V value);
+
+        long size();
+    }
+
+    /**
+     * LRU淘汰，读取时检查过期
+     */
+    private static class LruStore<K, V> implements Store<K, V> {
+
+        private final long ttl;
+
+        private final int maxEntries;
+
+        private final long maxBytes;
+
+        private final ToIntBiFunction<K, V> weigher;
+
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private long bytes;
+
+        LruStore(long ttl, int maxEntries, long maxBytes, ToIntBiFunction<K, V> weigher) {
+            this.ttl = ttl;
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+            this.weigher = weigher;
+        }
+
+        @Override
+        public synchronized V get(K key) {
+            Entry<V> entry = this.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt <= System.currentTimeMillis()) {
+                this.entries.remove(key);
+                this.bytes -= entry.weight;
+                return null;
+            }
+            return entry.value;
+        }
+
+        @Override
+        public synchronized void put(K key, V value) {
+            Entry<V> entry = new Entry<>(value, this.weigher.applyAsInt(key, value), System.currentTimeMillis() + this.ttl);
+            Entry<V> old = this.entries.put(key, entry);
+            this.bytes += entry.weight - (old == null ? 0 : old.weight);
+            Iterator<Map.Entry<K, Entry<V>>> eldest = this.entries.entrySet().iterator();
+            while (eldest.hasNext() && (this.entries.size() > this.maxEntries || (this.maxBytes > 0 && this.bytes > this.maxBytes))) {
+                this.bytes -= eldest.next().getValue().weight;
+                eldest.remove();
+            }
+        }
+
+        @Override
+        public synchronized long size() {
+            return this.entries.size();
+        }
+
+        private static class Entry<V> {
+
+            private final V value;
+
+            private final int weight;
+
+            private final long expireAt;
+
+            Entry(V value, int weight, long expireAt) {
+                this.value = value;
+                this.weight = weight;
+                this.expireAt = expireAt;
+            }
+        }
+    }
+
+    /**
+     * caffeine W-TinyLFU淘汰，只有在caffeine存在时才会加载
+     */
+    private static class CaffeineStore<K, V> implements Store<K, V> {
+
+        private final Cache<K, V> cache;
+
+        CaffeineStore(long ttl, int maxEntries, long maxBytes, ToIntBiFunction<K, V> weigher) {
+            Caffeine<Object, Object> builder = Caffeine.newBuilder().expireAfterWrite(ttl, TimeUnit.MILLISECONDS);
+            if (maxBytes > 0) {
+                this.cache = builder.maximumWeight(maxBytes).weigher((K key, V value) -> weigher.applyAsInt(key, value)).build();
+            } else {
+                this.cache = builder.maximumSize(maxEntries).build();
+            }
+        }
+
+        @Override
+        public V get(K key) {
+            return this.cache.getIfPresent(key);
+        }
+
+        @Override
+        public void put(K key, V value) {
+            this.cache.put(key, value);
+        }
+
+        @Override
+        public long size() {
+            return this.cache.estimatedSize();
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package com.gaad.rabbitmq.fgb.util;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.lang.reflect.Type;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONObject;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
 
 /**
  * @author loken
@@ -12,9 +12,9 @@ import com.alibaba.fastjson.JSONObject;
 @SuppressWarnings("all")
 public class ParamsConverterUtil {
 
-    public static Object convertReturnType(Method method, JSONObject result) {
+    public static Object convertReturnType(Type returnType, FgbCodec codec, byte[] result) throws IOException {
         if (result != null) {
-            return JSON.parseObject(result.toString(), method.getGenericReturnType());
+            return codec.decodeResult(result, returnType);
 
             // if (result != null) {
             // if (method.getreturntype() == resultbean.class) {
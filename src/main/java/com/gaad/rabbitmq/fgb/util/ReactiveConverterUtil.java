@@ -0,0 +1,91 @@
+package com.gaad.rabbitmq.fgb.util;
+
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * reactor类型转换，reactor-core为可选依赖，调用前需先判断 {@link #isMono(Class)} / {@link #isFlux(Class)}
+ *
+ * @author loken
+ * @date 2026/10/17
+ */
+public class ReactiveConverterUtil {
+
+    private static final boolean REACTOR_PRESENT = ClassUtils.isPresent("reactor.core.publisher.Mono", ReactiveConverterUtil.class.getClassLoader());
+
+    public static boolean isMono(Class<?> type) {
+        return REACTOR_PRESENT && ReactorConverter.isMono(type);
+    }
+
+    public static boolean isFlux(Class<?> type) {
+        return REACTOR_PRESENT && ReactorConverter.isFlux(type);
+    }
+
+    /**
+     * 转换为Mono，订阅时才发起调用
+     *
+     * @param call 发起调用
+     * @return
+     */
+    public static Object toMono(Supplier<CompletableFuture<Object>> call) {
+        return ReactorConverter.toMono(call);
+    }
+
+    /**
+     * 转换为Flux，订阅时才发起调用，按下游请求数逐个发出结果中的元素
+     *
+     * @param call 发起调用，结果为集合
+     * @return
+     */
+    public static Object toFlux(Supplier<CompletableFuture<Object>> call) {
+        return ReactorConverter.toFlux(call);
+    }
+
+    /**
+     * 将Mono/Flux结果转换为CompletionStage，Flux收集为List
+     *
+     * @param publisher Mono/Flux
+     * @return
+     */
+    public static CompletionStage<Object> toCompletionStage(Object publisher) {
+        return ReactorConverter.toCompletionStage(publisher);
+    }
+
+    /**
+     * 引用reactor的类，只有在reactor-core存在时才会加载
+     */
+    private static class ReactorConverter {
+
+        static boolean isMono(Class<?> type) {
+            return Mono.class == type;
+        }
+
+        static boolean isFlux(Class<?> type) {
+            return Flux.class == type;
+        }
+
+        static Object toMono(Supplier<CompletableFuture<Object>> call) {
+            return Mono.fromFuture(call);
+        }
+
+        @SuppressWarnings("unchecked")
+        static Object toFlux(Supplier<CompletableFuture<Object>> call) {
+            return Mono.fromFuture(call).flatMapIterable(result -> (Collection<Object>) result);
+        }
+
+        @SuppressWarnings("unchecked")
+        static CompletionStage<Object> toCompletionStage(Object publisher) {
+            if (publisher instanceof Flux) {
+                return (CompletionStage<Object>) (CompletionStage<?>) ((Flux<Object>) publisher).collectList().toFuture();
+            }
+            return ((Mono<Object>) publisher).toFuture();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FgbCircuitBreaker的状态切换，以及切换前发起的调用不计入新状态
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+class FgbCircuitBreakerTest {
+
+    private static final long OPEN_DURATION = 50;
+
+    @Test
+    void opensWhenFailureRateReached() {
+        FgbCircuitBreaker circuitBreaker = new FgbCircuitBreaker("test", 50, 0, 100, 10, 4, OPEN_DURATION, 2);
+        call(circuitBreaker, false);
+        call(circuitBreaker, true);
+        call(circuitBreaker, true);
+        // 未达到最少调用次数
+        assertEquals(FgbCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        call(circuitBreaker, false);
+        assertEquals(FgbCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(-1, circuitBreaker.tryAcquire());
+        assertEquals(1, circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        FgbCircuitBreaker circuitBreaker = new FgbCircuitBreaker("test", 50, 0, 100, 4, 4, OPEN_DURATION, 2);
+        call(circuitBreaker, true);
+        for (int i = 0; i < 4; i++) {
+            call(circuitBreaker, false);
+        }
+        // 第一次失败已移出窗口
+        call(circuitBreaker, true);
+        assertEquals(FgbCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        call(circuitBreaker, true);
+        assertEquals(FgbCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void opensWhenSlowCallRateReached() {
+        FgbCircuitBreaker circuitBreaker = new FgbCircuitBreaker("test", 0, 100, 50, 10, 2, OPEN_DURATION, 2);
+        circuitBreaker.onComplete(circuitBreaker.tryAcquire(), 99, false);
+        assertEquals(FgbCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.onComplete(circuitBreaker.tryAcquire(), 100, false);
+        assertEquals(FgbCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulProbes() throws InterruptedException {
+        FgbCircuitBreaker circuitBreaker = open();
+        Thread.sleep(OPEN_DURATION + 10);
+
+        long first = circuitBreaker.tryAcquire();
+        long second = circuitBreaker.tryAcquire();
+        assertEquals(FgbCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(first >= 0 && second >= 0);
+        // 探测调用数用完
+        assertEquals(-1, circuitBreaker.tryAcquire());
+
+        circuitBreaker.onComplete(first, 1, false);
+        assertEquals(FgbCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onComplete(second, 1, false);
+        assertEquals(FgbCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpenReopensAfterFailedProbes() throws InterruptedException {
+        FgbCircuitBreaker circuitBreaker = open();
+        Thread.sleep(OPEN_DURATION + 10);
+
+        long first = circuitBreaker.tryAcquire();
+        long second = circuitBreaker.tryAcquire();
+        circuitBreaker.onComplete(first, 1, true);
+        circuitBreaker.onComplete(second, 1, false);
+        assertEquals(FgbCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(-1, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void staleCallsAreIgnored() throws InterruptedException {
+        FgbCircuitBreaker circuitBreaker = new FgbCircuitBreaker("test", 50, 0, 100, 10, 2, OPEN_DURATION, 1);
+        // 熔断前发起，熔断后才完成
+        long stale = circuitBreaker.tryAcquire();
+        call(circuitBreaker, true);
+        call(circuitBreaker, true);
+        assertEquals(FgbCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        circuitBreaker.onComplete(stale, 1, false);
+        assertEquals(FgbCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        Thread.sleep(OPEN_DURATION + 10);
+        long probe = circuitBreaker.tryAcquire();
+        // 旧调用的失败不影响半开探测
+        circuitBreaker.onComplete(stale, 1, true);
+        assertEquals(FgbCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onComplete(probe, 1, false);
+        assertEquals(FgbCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        // 半开期间发起的探测在关闭后完成，也不计入
+        circuitBreaker.onComplete(probe, 1, true);
+        call(circuitBreaker, true);
+        assertEquals(FgbCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private static FgbCircuitBreaker open() {
+        FgbCircuitBreaker circuitBreaker = new FgbCircuitBreaker("test", 50, 0, 100, 10, 2, OPEN_DURATION, 2);
+        call(circuitBreaker, true);
+        call(circuitBreaker, true);
+        assertEquals(FgbCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+
+    private static void call(FgbCircuitBreaker circuitBreaker, boolean failed) {
+        long permit = circuitBreaker.tryAcquire();
+        assertTrue(permit >= 0);
+        circuitBreaker.onComplete(permit, 1, failed);
+    }
+}
@@ -0,0 +1,96 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import com.gaad.rabbitmq.fgb.annotation.FgbClient;
+import com.gaad.rabbitmq.fgb.annotation.FgbClientMethod;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.codec.JsonFgbCodec;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * FgbClientCallSite按最近请求耗时计算答复超时和对冲等待时间
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+class FgbClientCallSiteTest {
+
+    private static final int REPLY_TIMEOUT = 1000;
+
+    @Test
+    void fixedReplyTimeout() throws Exception {
+        FgbClientCallSite callSite = callSite("fixed");
+        assertEquals(REPLY_TIMEOUT, callSite.replyTimeout(REPLY_TIMEOUT));
+        assertEquals(-1, callSite.hedgeDelay());
+    }
+
+    @Test
+    void adaptiveReplyTimeout() throws Exception {
+        // 样本不足时使用replyTimeout
+        assertEquals(REPLY_TIMEOUT, callSite("adaptive", 10, 99).replyTimeout(REPLY_TIMEOUT));
+        // p99的2倍
+        assertEquals(40, callSite("adaptive", 20, 100).replyTimeout(REPLY_TIMEOUT));
+        // 不低于minReplyTimeout
+        assertEquals(30, callSite("adaptive", 1, 100).replyTimeout(REPLY_TIMEOUT));
+        // 不超过replyTimeout
+        assertEquals(REPLY_TIMEOUT, callSite("adaptive", 800, 100).replyTimeout(REPLY_TIMEOUT));
+    }
+
+    @Test
+    void adaptiveReplyTimeoutUsesP99() throws Exception {
+        FgbClientCallSite callSite = callSite("adaptive");
+        FgbLatencyTracker latencyTracker = new FgbLatencyTracker();
+        for (int i = 1; i <= 100; i++) {
+            latencyTracker.record(i);
+        }
+        callSite.setLatencyTracker(latencyTracker);
+        assertEquals(198, callSite.replyTimeout(REPLY_TIMEOUT));
+    }
+
+    @Test
+    void hedgeDelay() throws Exception {
+        assertEquals(50, callSite("fixedHedge", 10, 100).hedgeDelay());
+        // 未指定时按p95
+        FgbClientCallSite callSite = callSite("hedge");
+        FgbLatencyTracker latencyTracker = new FgbLatencyTracker();
+        for (int i = 1; i <= 100; i++) {
+            latencyTracker.record(i);
+        }
+        callSite.setLatencyTracker(latencyTracker);
+        assertEquals(95, callSite.hedgeDelay());
+        // 样本不足时不发送对冲请求
+        assertEquals(-1, callSite("hedge", 10, 99).hedgeDelay());
+    }
+
+    private static FgbClientCallSite callSite(String method, long latency, int samples) throws Exception {
+        FgbClientCallSite callSite = callSite(method);
+        FgbLatencyTracker latencyTracker = new FgbLatencyTracker();
+        for (int i = 0; i < samples; i++) {
+            latencyTracker.record(latency);
+        }
+        callSite.setLatencyTracker(latencyTracker);
+        return callSite;
+    }
+
+    private static FgbClientCallSite callSite(String method) throws Exception {
+        return FgbClientCallSite.create(DemoClient.class, DemoClient.class.getMethod(method, String.class),
+                FgbCodecRegistry.getCodec(JsonFgbCodec.class));
+    }
+
+    @FgbClient("demo")
+    interface DemoClient {
+
+        @FgbClientMethod
+        String fixed(String value);
+
+        @FgbClientMethod(adaptiveTimeout = true, minReplyTimeout = 30)
+        String adaptive(String value);
+
+        @FgbClientMethod(hedge = true)
+        String hedge(String value);
+
+        @FgbClientMethod(hedge = true, hedgeDelay = 50)
+        String fixedHedge(String value);
+    }
+}
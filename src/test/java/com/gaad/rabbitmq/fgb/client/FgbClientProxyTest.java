@@ -0,0 +1,246 @@
+package com.gaad.rabbitmq.fgb.client;
+
+import com.gaad.rabbitmq.fgb.annotation.FgbClient;
+import com.gaad.rabbitmq.fgb.annotation.FgbClientMethod;
+import com.gaad.rabbitmq.fgb.codec.FgbCodec;
+import com.gaad.rabbitmq.fgb.codec.FgbCodecRegistry;
+import com.gaad.rabbitmq.fgb.codec.JsonFgbCodec;
+import com.gaad.rabbitmq.fgb.log.FgbAccessLog;
+import com.gaad.rabbitmq.fgb.model.enums.FgbCompressionType;
+import com.gaad.rabbitmq.fgb.model.enums.FgbType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * FgbClientProxy拒绝调用时的行为，拒绝的调用不发送消息，异常抛给调用方；对冲调用的发送和取消
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+class FgbClientProxyTest {
+
+    private static final long HEDGE_DELAY = 50;
+
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+
+    private final ThreadPoolTaskExecutor hedgeExecutor = new ThreadPoolTaskExecutor();
+
+    /**
+     * 对冲调用发出的请求，答复由测试设置
+     */
+    private final List<AsyncRabbitTemplate.RabbitMessageFuture> attempts = new CopyOnWriteArrayList<>();
+
+    /**
+     * 依次作为请求发出时立即到达的答复(Message)或异常(Throwable)，为空时由测试设置答复
+     */
+    private final Queue<Object> outcomes = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 第blockedAttempt次请求(从0开始)发送时阻塞，直到releasePublish，模拟broker流控
+     */
+    private volatile int blockedAttempt = -1;
+
+    private final CountDownLatch publishBlocked = new CountDownLatch(1);
+
+    private final CountDownLatch releasePublish = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        this.releasePublish.countDown();
+        this.taskScheduler.shutdown();
+        this.hedgeExecutor.shutdown();
+    }
+
+    @Test
+    void confirmedSendRejectedWhenNoSlot() {
+        RabbitTemplate asyncSender = mock(RabbitTemplate.class);
+        // 等待确认的窗口为0，等待超时后拒绝
+        DemoClient client = client(asyncSender, 0);
+
+        assertThrows(FgbCallRejectedException.class, () -> client.fire("a"));
+        verify(asyncSender, never()).send(any(), any(), any(), any());
+    }
+
+    @Test
+    void syncCallRejectedByOpenCircuit() throws Exception {
+        FgbCircuitBreaker circuitBreaker = new FgbCircuitBreaker("demo", 50, 0, 100, 10, 1, 60000, 1);
+        circuitBreaker.onComplete(circuitBreaker.tryAcquire(), 1, true);
+        Map<Method, FgbClientCallSite> callSites = callSites();
+        callSites.get(DemoClient.class.getMethod("count", String.class)).setCircuitBreaker(circuitBreaker);
+        DemoClient client = client(callSites, null, 1);
+
+        // 返回基本类型的方法被拒绝时抛出异常，而不是返回null导致NPE
+        assertThrows(FgbCallRejectedException.class, () -> client.count("a"));
+        assertEquals(1, circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    void hedgeSentWhenReplyIsSlow() throws Exception {
+        DemoClient client = hedgedClient();
+        CompletableFuture<String> result = client.hedged("a");
+        assertEquals(1, this.attempts.size());
+
+        // 第一次请求hedgeDelay后仍未答复，发送对冲请求，使用先到的答复
+        waitForAttempts(2);
+        this.attempts.get(1).set(reply("second"));
+        assertEquals("second", result.get(1, TimeUnit.SECONDS));
+        this.attempts.get(0).set(reply("first"));
+        assertEquals("second", result.get());
+        assertEquals(2, this.attempts.size());
+    }
+
+    @Test
+    void hedgeCancelledWhenReplyArrives() throws Exception {
+        DemoClient client = hedgedClient();
+        this.outcomes.add(reply("first"));
+        CompletableFuture<String> result = client.hedged("a");
+        assertEquals("first", result.get(1, TimeUnit.SECONDS));
+
+        // 答复先于hedgeDelay到达，不再发送对冲请求
+        Thread.sleep(HEDGE_DELAY * 3);
+        assertEquals(1, this.attempts.size());
+    }
+
+    @Test
+    void hedgeNotSentAfterFailure() throws Exception {
+        DemoClient client = hedgedClient();
+        this.outcomes.add(new IllegalStateException("failed"));
+        CompletableFuture<String> result = client.hedged("a");
+        // 唯一的请求失败后立即重发，之后不再发送对冲请求
+        assertEquals(2, this.attempts.size());
+        this.attempts.get(1).set(reply("resent"));
+        assertEquals("resent", result.get(1, TimeUnit.SECONDS));
+
+        Thread.sleep(HEDGE_DELAY * 3);
+        assertEquals(2, this.attempts.size());
+    }
+
+    @Test
+    void blockedHedgeDoesNotDelayTimeouts() throws Exception {
+        DemoClient client = hedgedClient();
+        this.blockedAttempt = 1;
+        client.hedged("a");
+        // 对冲请求发送时阻塞
+        assertTrue(this.publishBlocked.await(1, TimeUnit.SECONDS));
+
+        // 另一个调用的答复超时仍按时到期
+        CompletableFuture<String> result = client.adaptive("b");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals("请求超时", e.getCause().getMessage());
+    }
+
+    private DemoClient hedgedClient() throws Exception {
+        AsyncRabbitTemplate outer = new AsyncRabbitTemplate(new RabbitTemplate(mock(ConnectionFactory.class)));
+        AsyncRabbitTemplate syncSender = mock(AsyncRabbitTemplate.class);
+        when(syncSender.isRunning()).thenReturn(true);
+        when(syncSender.sendAndReceive(any(Message.class))).thenAnswer(invocation -> {
+            AsyncRabbitTemplate.RabbitMessageFuture future = outer.new RabbitMessageFuture("c" + this.attempts.size(), invocation.getArgument(0));
+            this.attempts.add(future);
+            if (this.attempts.size() - 1 == this.blockedAttempt) {
+                this.publishBlocked.countDown();
+                this.releasePublish.await();
+            }
+            Object outcome = this.outcomes.poll();
+            if (outcome instanceof Message) {
+                future.set((Message) outcome);
+            } else if (outcome instanceof Throwable) {
+                future.setException((Throwable) outcome);
+            }
+            return future;
+        });
+        this.taskScheduler.initialize();
+        this.hedgeExecutor.initialize();
+        Map<Method, FgbClientCallSite> callSites = callSites();
+        callSites.get(DemoClient.class.getMethod("hedged", String.class)).setLatencyTracker(new FgbLatencyTracker());
+        // 答复超时为minReplyTimeout
+        FgbLatencyTracker latencyTracker = new FgbLatencyTracker();
+        for (int i = 0; i < 100; i++) {
+            latencyTracker.record(1);
+        }
+        callSites.get(DemoClient.class.getMethod("adaptive", String.class)).setLatencyTracker(latencyTracker);
+        FgbCodec codec = FgbCodecRegistry.getCodec(JsonFgbCodec.class);
+        FgbClientProxy proxy = new FgbClientProxy(DemoClient.class, "demo", codec, callSites, syncSender, null, null, this.taskScheduler, this.hedgeExecutor,
+                FgbAccessLog.of(new StandardEnvironment()), 5000, 2, 1, 10, FgbCompressionType.NONE, 0, 0);
+        return (DemoClient) Proxy.newProxyInstance(DemoClient.class.getClassLoader(), new Class[]{DemoClient.class}, proxy);
+    }
+
+    private void waitForAttempts(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (this.attempts.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(this.attempts.size() >= count);
+    }
+
+    private static Message reply(String value) throws Exception {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(FgbCodecRegistry.getCodec(JsonFgbCodec.class).encodeResult(value), messageProperties);
+    }
+
+    private static DemoClient client(RabbitTemplate asyncSender, int maxInFlight) {
+        return client(callSites(), asyncSender, maxInFlight);
+    }
+
+    private static Map<Method, FgbClientCallSite> callSites() {
+        FgbCodec codec = FgbCodecRegistry.getCodec(JsonFgbCodec.class);
+        Map<Method, FgbClientCallSite> callSites = new HashMap<>();
+        for (Method method : DemoClient.class.getMethods()) {
+            callSites.put(method, FgbClientCallSite.create(DemoClient.class, method, codec));
+        }
+        return callSites;
+    }
+
+    private static DemoClient client(Map<Method, FgbClientCallSite> callSites, RabbitTemplate asyncSender, int maxInFlight) {
+        FgbCodec codec = FgbCodecRegistry.getCodec(JsonFgbCodec.class);
+        FgbClientProxy proxy = new FgbClientProxy(DemoClient.class, "demo", codec, callSites, null, asyncSender, null, null, null,
+                FgbAccessLog.of(new StandardEnvironment()), 100, 1, maxInFlight, 10, FgbCompressionType.NONE, 0, 0);
+        return (DemoClient) Proxy.newProxyInstance(DemoClient.class.getClassLoader(), new Class[]{DemoClient.class}, proxy);
+    }
+
+    @FgbClient("demo")
+    interface DemoClient {
+
+        @FgbClientMethod(type = FgbType.ASYNC, confirm = true)
+        void fire(String value);
+
+        @FgbClientMethod
+        int count(String value);
+
+        @FgbClientMethod(hedge = true, hedgeDelay = HEDGE_DELAY)
+        CompletableFuture<String> hedged(String value);
+
+        @FgbClientMethod(adaptiveTimeout = true, minReplyTimeout = 50)
+        CompletableFuture<String> adaptive(String value);
+    }
+}
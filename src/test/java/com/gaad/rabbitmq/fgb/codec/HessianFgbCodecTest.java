@@ -0,0 +1,123 @@
+package com.gaad.rabbitmq.fgb.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HessianFgbCodec的类白名单，白名单外的类还原为Map，再按目标类型转换；服务端只按配置的编解码器解码
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+class HessianFgbCodecTest {
+
+    private final HessianFgbCodec codec = new HessianFgbCodec();
+
+    @Test
+    void allowedTypeAndFieldsAreInstantiated() throws IOException {
+        this.codec.allowType(Order.class);
+        Order order = new Order("A001", Arrays.asList(new OrderLine("apple", 2)));
+
+        Object decoded = decodeArg(order, Object.class);
+        assertTrue(decoded instanceof Order);
+        assertTrue(((Order) decoded).lines.get(0) instanceof OrderLine);
+        assertEquals("apple", ((Order) decoded).lines.get(0).name);
+    }
+
+    @Test
+    void unknownClassIsReadAsMap() throws IOException {
+        Unlisted unlisted = new Unlisted("loken");
+
+        assertTrue(decodeArg(unlisted, Object.class) instanceof Map);
+        // 按参数类型转换后仍可正常使用
+        Unlisted converted = (Unlisted) decodeArg(unlisted, Unlisted.class);
+        assertEquals("loken", converted.name);
+    }
+
+    @Test
+    void allowPattern() throws IOException {
+        HessianFgbCodec.allow(Pattern.class.getName());
+
+        assertTrue(decodeArg(new Pattern("loken"), Object.class) instanceof Pattern);
+    }
+
+    @Test
+    void onlyConfiguredCodecDecodes() {
+        FgbCodec json = FgbCodecRegistry.getCodec(JsonFgbCodec.class);
+        FgbCodec hessian = FgbCodecRegistry.getCodec(HessianFgbCodec.class);
+
+        // 配置为json时hessian消息按json解码
+        assertSame(json, FgbCodecRegistry.getCodec(HessianFgbCodec.CONTENT_TYPE, json));
+        assertSame(hessian, FgbCodecRegistry.getCodec(HessianFgbCodec.CONTENT_TYPE, hessian));
+        assertSame(json, FgbCodecRegistry.getCodec("text/plain", hessian));
+        assertSame(hessian, FgbCodecRegistry.getCodec(null, hessian));
+    }
+
+    private Object decodeArg(Object arg, Type type) throws IOException {
+        byte[] body = this.codec.encodeRequest("save", new Object[]{arg});
+        return this.codec.decodeRequest(body).getArgs(new Type[]{type})[0];
+    }
+
+    public static class Order {
+
+        public String id;
+
+        public List<OrderLine> lines;
+
+        public Order() {
+        }
+
+        Order(String id, List<OrderLine> lines) {
+            this.id = id;
+            this.lines = lines;
+        }
+    }
+
+    public static class OrderLine {
+
+        public String name;
+
+        public int quantity;
+
+        public OrderLine() {
+        }
+
+        OrderLine(String name, int quantity) {
+            this.name = name;
+            this.quantity = quantity;
+        }
+    }
+
+    public static class Unlisted {
+
+        public String name;
+
+        public Unlisted() {
+        }
+
+        Unlisted(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Pattern {
+
+        public String name;
+
+        public Pattern() {
+        }
+
+        Pattern(String name) {
+            this.name = name;
+        }
+    }
+}
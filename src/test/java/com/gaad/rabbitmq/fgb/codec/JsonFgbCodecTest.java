@@ -0,0 +1,201 @@
+package com.gaad.rabbitmq.fgb.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * JsonFgbCodec的编解码，包括与早期消息格式的兼容和$ref引用
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+class JsonFgbCodecTest {
+
+    private final JsonFgbCodec codec = new JsonFgbCodec();
+
+    @Test
+    void requestRoundTrip() throws IOException {
+        Person person = new Person("loken", 18);
+        byte[] body = this.codec.encodeRequest("save", new Object[]{person, Arrays.asList(person), 3L});
+
+        FgbRequest request = this.codec.decodeRequest(body);
+        assertEquals("save", request.getCommand());
+        Object[] args = request.getArgs(types("save"));
+        assertEquals(person, args[0]);
+        assertEquals(Arrays.asList(person), args[1]);
+        assertEquals(3L, args[2]);
+        // 重复获取返回同一组参数
+        assertSame(args, request.getArgs(types("save")));
+    }
+
+    @Test
+    void nullArgsAreSkipped() throws IOException {
+        byte[] body = this.codec.encodeRequest("save", new Object[]{null, null, 1L});
+        assertEquals("{\"command\":\"save\",\"data\":{\"2\":1}}", new String(body, StandardCharsets.UTF_8));
+
+        Object[] args = this.codec.decodeRequest(body).getArgs(types("save"));
+        assertArrayEquals(new Object[]{null, null, 1L}, args);
+    }
+
+    @Test
+    void sameObjectAcrossArgs() throws IOException {
+        Person person = new Person("loken", 18);
+        byte[] body = this.codec.encodeRequest("save", new Object[]{person, Arrays.asList(person, person), null});
+
+        Object[] args = this.codec.decodeRequest(body).getArgs(types("save"));
+        assertEquals(person, args[0]);
+        assertEquals(Arrays.asList(person, person), args[1]);
+    }
+
+    @Test
+    void sameObjectWithinArg() throws IOException {
+        Person person = new Person("loken", 18);
+        byte[] body = this.codec.encodeRequest("save", new Object[]{null, Arrays.asList(person, person), null});
+
+        @SuppressWarnings("unchecked")
+        List<Person> persons = (List<Person>) this.codec.decodeRequest(body).getArgs(types("save"))[1];
+        assertEquals(2, persons.size());
+        assertEquals(person, persons.get(1));
+        assertSame(persons.get(0), persons.get(1));
+    }
+
+    @Test
+    void circularArg() throws IOException {
+        Person person = new Person("loken", 18);
+        person.setFriend(person);
+        byte[] body = this.codec.encodeRequest("save", new Object[]{person, null, null});
+
+        Person decoded = (Person) this.codec.decodeRequest(body).getArgs(types("save"))[0];
+        assertEquals("loken", decoded.getName());
+        assertSame(decoded, decoded.getFriend());
+    }
+
+    @Test
+    void legacyRequestWithDataFirst() throws IOException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("0", new Person("loken", 18));
+        data.put("2", 5L);
+        JSONObject legacy = new JSONObject(true);
+        legacy.put("data", data);
+        legacy.put("command", "save");
+        byte[] body = JSON.toJSONBytes(legacy);
+
+        FgbRequest request = this.codec.decodeRequest(body);
+        assertEquals("save", request.getCommand());
+        Object[] args = request.getArgs(types("save"));
+        assertEquals(new Person("loken", 18), args[0]);
+        assertNull(args[1]);
+        assertEquals(5L, args[2]);
+    }
+
+    @Test
+    void emptyRequest() throws IOException {
+        FgbRequest request = this.codec.decodeRequest("null".getBytes(StandardCharsets.UTF_8));
+        assertNull(request.getCommand());
+        assertArrayEquals(new Object[3], request.getArgs(types("save")));
+    }
+
+    @Test
+    void resultRoundTrip() throws Exception {
+        Person person = new Person("loken", 18);
+        Type resultType = Service.class.getMethod("find").getGenericReturnType();
+
+        Object result = this.codec.decodeResult(this.codec.encodeResult(Arrays.asList(person, person)), resultType);
+        assertEquals(Arrays.asList(person, person), result);
+        assertNull(this.codec.decodeResult(this.codec.encodeResult(null), resultType));
+    }
+
+    @Test
+    void invalidUtf8() {
+        byte[] body = {'{', '"', (byte) 0xC3, (byte) 0x28, '"', ':', '1', '}'};
+        assertThrows(IOException.class, () -> this.codec.decodeRequest(body));
+    }
+
+    private static Type[] types(String name) {
+        for (Method method : Service.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method.getGenericParameterTypes();
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    interface Service {
+
+        void save(Person person, List<Person> persons, Long version);
+
+        List<Person> find();
+    }
+
+    public static class Person {
+
+        private String name;
+
+        private int age;
+
+        private Person friend;
+
+        public Person() {
+        }
+
+        Person(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return this.age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public Person getFriend() {
+            return this.friend;
+        }
+
+        public void setFriend(Person friend) {
+            this.friend = friend;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Person)) {
+                return false;
+            }
+            Person other = (Person) o;
+            return this.age == other.age && this.name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.name.hashCode() * 31 + this.age;
+        }
+    }
+}
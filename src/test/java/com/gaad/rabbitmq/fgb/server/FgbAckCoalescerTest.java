@@ -0,0 +1,129 @@
+package com.gaad.rabbitmq.fgb.server;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * FgbAckCoalescer合并确认，乱序完成时只确认到最早未完成的消息之前
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+class FgbAckCoalescerTest {
+
+    private final Channel channel = mock(Channel.class);
+
+    /**
+     * 定时确认的间隔足够长，测试中只由batchSize和flush触发确认
+     */
+    private final FgbAckCoalescer coalescer = new FgbAckCoalescer("ASYNC-FgbServer-test", 3, 60000);
+
+    @AfterEach
+    void close() {
+        this.coalescer.close();
+    }
+
+    @Test
+    void ackWhenBatchCompleted() throws IOException {
+        deliver(1, 3);
+        this.coalescer.completed(this.channel, 1);
+        this.coalescer.completed(this.channel, 2);
+        verify(this.channel, never()).basicAck(anyLong(), anyBoolean());
+
+        this.coalescer.completed(this.channel, 3);
+        verify(this.channel).basicAck(3, true);
+    }
+
+    @Test
+    void outOfOrderWaitsForEarliestPending() throws IOException {
+        deliver(1, 4);
+        this.coalescer.completed(this.channel, 2);
+        this.coalescer.completed(this.channel, 3);
+        this.coalescer.completed(this.channel, 4);
+        // 1未完成，不能确认2~4
+        verify(this.channel, never()).basicAck(anyLong(), anyBoolean());
+
+        this.coalescer.completed(this.channel, 1);
+        verify(this.channel).basicAck(4, true);
+    }
+
+    @Test
+    void ackUpToFirstPending() throws IOException {
+        deliver(1, 5);
+        this.coalescer.completed(this.channel, 1);
+        this.coalescer.completed(this.channel, 2);
+        this.coalescer.completed(this.channel, 4);
+        verify(this.channel).basicAck(2, true);
+
+        this.coalescer.completed(this.channel, 3);
+        this.coalescer.flush();
+        InOrder inOrder = inOrder(this.channel);
+        inOrder.verify(this.channel).basicAck(2, true);
+        inOrder.verify(this.channel).basicAck(4, true);
+        // 没有新完成的消息时不重复确认
+        this.coalescer.flush();
+        verify(this.channel, times(2)).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void ackEachMessageAfterClose() throws IOException {
+        deliver(1, 2);
+        this.coalescer.completed(this.channel, 1);
+        this.coalescer.close();
+        verify(this.channel).basicAck(1, true);
+
+        this.coalescer.completed(this.channel, 2);
+        verify(this.channel).basicAck(2, true);
+    }
+
+    @Test
+    void closedChannelIsForgotten() throws IOException {
+        deliver(1, 3);
+        ArgumentCaptor<ShutdownListener> listener = ArgumentCaptor.forClass(ShutdownListener.class);
+        verify(this.channel).addShutdownListener(listener.capture());
+        listener.getValue().shutdownCompleted(mock(ShutdownSignalException.class));
+
+        // channel关闭后未确认的消息由broker重新投递
+        this.coalescer.completed(this.channel, 1);
+        this.coalescer.completed(this.channel, 2);
+        this.coalescer.completed(this.channel, 3);
+        this.coalescer.flush();
+        verify(this.channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void ackFailureDropsChannel() throws IOException {
+        doThrow(new IOException("closed")).when(this.channel).basicAck(3, true);
+        deliver(1, 6);
+        this.coalescer.completed(this.channel, 1);
+        this.coalescer.completed(this.channel, 2);
+        this.coalescer.completed(this.channel, 3);
+
+        this.coalescer.completed(this.channel, 4);
+        this.coalescer.completed(this.channel, 5);
+        this.coalescer.completed(this.channel, 6);
+        verify(this.channel, times(1)).basicAck(anyLong(), anyBoolean());
+    }
+
+    private void deliver(long from, long to) {
+        for (long deliveryTag = from; deliveryTag <= to; deliveryTag++) {
+            this.coalescer.delivered(this.channel, deliveryTag);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.gaad.rabbitmq.fgb.util;
+
+import com.gaad.rabbitmq.fgb.model.constants.FgbHeaderConstant;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.batch.MessageBatch;
+import org.springframework.amqp.rabbit.batch.SimpleBatchingStrategy;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.support.AmqpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FgbBatchingStrategy合并与拆分，拆分后每条消息的消息属性和消息头相互独立
+ *
+ * @author loken
+ * @date 2026/10/18
+ */
+class FgbBatchingStrategyTest {
+
+    @Test
+    void fragmentsKeepTheirOwnHeaders() {
+        FgbBatchingStrategy strategy = new FgbBatchingStrategy(3, 1024, 100);
+        assertNull(strategy.addToBatch("", "demo.async", message("fire", 1L, "a")));
+        assertNull(strategy.addToBatch("", "demo.async", message("bulk", 2L, "bb")));
+        MessageBatch batch = strategy.addToBatch("", "demo.async", message("fire", 3L, "ccc"));
+        assertEquals("demo.async", batch.getRoutingKey());
+        Message message = batch.getMessage();
+        assertTrue(strategy.canDebatch(message.getMessageProperties()));
+        assertNull(message.getMessageProperties().getHeaders().get(FgbHeaderConstant.COMMAND));
+        message.getMessageProperties().setDeliveryTag(7L);
+
+        List<Message> fragments = deBatch(strategy, message);
+        assertEquals(3, fragments.size());
+        assertEquals(Arrays.asList("fire", "bulk", "fire"), header(fragments, FgbHeaderConstant.COMMAND));
+        assertEquals(Arrays.asList(1L, 2L, 3L), header(fragments, FgbHeaderConstant.SENT_AT));
+        assertEquals(Arrays.asList("a", "bb", "ccc"), bodies(fragments));
+        for (Message fragment : fragments) {
+            assertEquals(7L, fragment.getMessageProperties().getDeliveryTag());
+            assertEquals(MessageProperties.CONTENT_TYPE_JSON, fragment.getMessageProperties().getContentType());
+            assertFalse(fragment.getMessageProperties().getHeaders().containsKey(MessageProperties.SPRING_BATCH_FORMAT));
+        }
+        assertTrue(fragments.get(2).getMessageProperties().isLastInBatch());
+        assertFalse(fragments.get(0).getMessageProperties().isLastInBatch());
+        assertNotSame(fragments.get(0).getMessageProperties(), fragments.get(1).getMessageProperties());
+    }
+
+    @Test
+    void singleMessageIsSentAsIs() {
+        FgbBatchingStrategy strategy = new FgbBatchingStrategy(10, 1024, 100);
+        Message message = message("fire", 1L, "a");
+        strategy.addToBatch("", "demo.async", message);
+
+        assertSame(message, strategy.releaseBatches().iterator().next().getMessage());
+        assertTrue(strategy.releaseBatches().isEmpty());
+        assertNull(strategy.nextRelease());
+    }
+
+    @Test
+    void lingerStartsWithFirstMessage() throws InterruptedException {
+        FgbBatchingStrategy strategy = new FgbBatchingStrategy(10, 1024, 100);
+        strategy.addToBatch("", "demo.async", message("fire", 1L, "a"));
+        Date releaseAt = strategy.nextRelease();
+        Thread.sleep(20);
+        strategy.addToBatch("", "demo.async", message("fire", 2L, "b"));
+
+        // 后续消息不推迟发送时间
+        assertEquals(releaseAt, strategy.nextRelease());
+        assertEquals(2, strategy.releaseBatches().iterator().next().getMessage().getMessageProperties().getHeaders().get(AmqpHeaders.BATCH_SIZE));
+        strategy.addToBatch("", "demo.async", message("fire", 3L, "c"));
+        assertTrue(strategy.nextRelease().after(releaseAt));
+    }
+
+    @Test
+    void releaseWhenBufferLimitReached() {
+        FgbBatchingStrategy strategy = new FgbBatchingStrategy(10, 64, 100);
+        assertNull(strategy.addToBatch("", "demo.async", message("fire", 1L, "0123456789")));
+        // 超过字节数时先发送已有的批次
+        MessageBatch batch = strategy.addToBatch("", "demo.async", message("fire", 2L, "0123456789012345678901234567890123456789"));
+        assertEquals(1L, batch.getMessage().getMessageProperties().getHeaders().get(FgbHeaderConstant.SENT_AT));
+    }
+
+    @Test
+    void lengthHeader4FragmentsAreCopied() {
+        SimpleBatchingStrategy simple = new SimpleBatchingStrategy(2, 1024, 100);
+        simple.addToBatch("", "demo.async", message("fire", 1L, "a"));
+        Message message = simple.addToBatch("", "demo.async", message("fire", 1L, "bb")).getMessage();
+        FgbBatchingStrategy strategy = new FgbBatchingStrategy(0, 0, 0);
+        assertTrue(strategy.canDebatch(message.getMessageProperties()));
+
+        List<Message> fragments = deBatch(strategy, message);
+        assertEquals(Arrays.asList("a", "bb"), bodies(fragments));
+        assertNotSame(fragments.get(0).getMessageProperties(), fragments.get(1).getMessageProperties());
+        assertFalse(fragments.get(0).getMessageProperties().isLastInBatch());
+        assertEquals(1L, fragments.get(0).getMessageProperties().getContentLength());
+    }
+
+    @Test
+    void badBatch() {
+        FgbBatchingStrategy strategy = new FgbBatchingStrategy(2, 1024, 100);
+        strategy.addToBatch("", "demo.async", message("fire", 1L, "a"));
+        Message message = strategy.addToBatch("", "demo.async", message("fire", 2L, "b")).getMessage();
+        Message truncated = new Message(Arrays.copyOf(message.getBody(), message.getBody().length - 1), message.getMessageProperties());
+
+        assertThrows(ListenerExecutionFailedException.class, () -> deBatch(strategy, truncated));
+    }
+
+    private static Message message(String command, long sentAt, String body) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setHeader(FgbHeaderConstant.COMMAND, command);
+        messageProperties.setHeader(FgbHeaderConstant.SENT_AT, sentAt);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), messageProperties);
+    }
+
+    private static List<Message> deBatch(FgbBatchingStrategy strategy, Message message) {
+        List<Message> fragments = new ArrayList<>();
+        strategy.deBatch(message, fragments::add);
+        return fragments;
+    }
+
+    private static List<Object> header(List<Message> fragments, String name) {
+        List<Object> values = new ArrayList<>();
+        for (Message fragment : fragments) {
+            values.add(fragment.getMessageProperties().getHeaders().get(name));
+        }
+        return values;
+    }
+
+    private static List<String> bodies(List<Message> fragments) {
+        List<String> bodies = new ArrayList<>();
+        for (Message fragment : fragments) {
+            bodies.add(new String(fragment.getBody(), StandardCharsets.UTF_8));
+        }
+        return bodies;
+    }
+}